@@ -1,9 +1,73 @@
 package com.thesis.receiptify.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
+
+    /**
+     * Default executor for {@code @Async} methods.
+     * Declared explicitly because defining any other executor bean disables Spring Boot's default one.
+     */
+    @Bean(name = "taskExecutor")
+    public ThreadPoolTaskExecutor taskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setThreadNamePrefix("task-");
+        return executor;
+    }
+
+    /**
+     * Bounded executor for the recommendation batch job.
+     * Kept small so the batch never takes more than a few database connections; when the
+     * queue is full the submitting thread runs the task itself.
+     */
+    @Bean(name = "recommendationBatchExecutor")
+    public ThreadPoolTaskExecutor recommendationBatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("recommendation-batch-");
+        return executor;
+    }
+
+    /**
+     * Bounded executor computing recommendations for the asynchronous recommendation endpoint,
+     * so slow requests don't hold servlet threads. When saturated it rejects work instead of
+     * queueing without bound, and the endpoint answers with fallback recommendations.
+     */
+    @Bean(name = "recommendationRequestExecutor")
+    public ThreadPoolTaskExecutor recommendationRequestExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("recommendation-request-");
+        return executor;
+    }
+
+    /**
+     * Executor running the scoring stages of a single recommendation request in parallel.
+     * Rejects work when saturated, in which case the stage runs on the requesting thread.
+     */
+    @Bean(name = "recommendationScoringExecutor", destroyMethod = "shutdown")
+    public ExecutorService recommendationScoringExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(256),
+                new CustomizableThreadFactory("recommendation-scoring-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
 }
@@ -1,6 +1,8 @@
 package com.thesis.receiptify.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thesis.receiptify.service.recommendation.RecommendationCacheEvictor;
+import com.thesis.receiptify.service.recommendation.RecommendationSessionStore;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -16,6 +18,18 @@ public class CacheConfig {
     public CacheManager cacheManager() {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager("tokenCache");
         cacheManager.setCaffeine(Caffeine.newBuilder().expireAfterWrite(60, TimeUnit.MINUTES));
+
+        // Evicted per user when their interactions, preferences or ratings change
+        cacheManager.registerCustomCache(RecommendationCacheEvictor.CACHE_NAME, Caffeine.newBuilder()
+                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .maximumSize(10_000)
+                .build());
+
+        // Rankings materialized for paging, kept while the user keeps loading pages
+        cacheManager.registerCustomCache(RecommendationSessionStore.CACHE_NAME, Caffeine.newBuilder()
+                .expireAfterAccess(15, TimeUnit.MINUTES)
+                .maximumSize(10_000)
+                .build());
         return cacheManager;
     }
 
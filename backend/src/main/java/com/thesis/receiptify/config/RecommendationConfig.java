@@ -0,0 +1,66 @@
+package com.thesis.receiptify.config;
+
+import com.thesis.receiptify.service.RatingService;
+import com.thesis.receiptify.service.RecipeService;
+import com.thesis.receiptify.service.RecipeSimilarityService;
+import com.thesis.receiptify.service.TrendingService;
+import com.thesis.receiptify.service.recommendation.FactorModelStore;
+import com.thesis.receiptify.service.recommendation.InteractionMatrix;
+import com.thesis.receiptify.service.recommendation.PopularityRanking;
+import com.thesis.receiptify.service.recommendation.RecipeFeatureStore;
+import com.thesis.receiptify.service.recommendation.RecommendationSnapshotStore;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RecommendationConfig {
+
+    @Bean
+    CommandLineRunner initRecommendationState(InteractionMatrix interactionMatrix,
+                                              RecipeFeatureStore featureStore,
+                                              RecipeSimilarityService recipeSimilarityService,
+                                              FactorModelStore factorModelStore,
+                                              RecommendationSnapshotStore snapshotStore,
+                                              TrendingService trendingService,
+                                              PopularityRanking popularityRanking) {
+        return args -> {
+            if (!snapshotStore.restore()) {
+                interactionMatrix.rebuild();
+                featureStore.rebuild();
+                snapshotStore.writeInBackground();
+            }
+            recipeSimilarityService.buildIndexIfEmpty();
+            trendingService.restore();
+            popularityRanking.rebuild();
+            if (!factorModelStore.loadSnapshot()) {
+                factorModelStore.trainInBackground();
+            }
+        };
+    }
+
+    @Bean
+    CommandLineRunner backfillSeasonalScores(RecipeService recipeService) {
+        return args -> {
+            try {
+                while (recipeService.backfillSeasonalScores(500) > 0) {
+                    // Keep going until every recipe has its monthly scores
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to backfill recipe seasonal scores: " + e.getMessage());
+            }
+        };
+    }
+
+    @Bean
+    CommandLineRunner repairRatingTotals(RatingService ratingService) {
+        return args -> {
+            try {
+                // Recipes created before the totals were stored start at zero
+                ratingService.repairRatingTotals();
+            } catch (Exception e) {
+                System.err.println("Failed to repair recipe rating totals: " + e.getMessage());
+            }
+        };
+    }
+}
@@ -75,6 +75,10 @@ public class WebSecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/recipes/search").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/recipes/search-options").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/recipes/seasonal").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/recipes/summary").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/recipes/search/summary").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/recipes/featured/summary").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/recipes/seasonal/summary").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/seasonality/current-month").permitAll()
 
                         // API endpoints that require authentication
@@ -1,5 +1,6 @@
 package com.thesis.receiptify.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thesis.receiptify.model.Comment;
 import com.thesis.receiptify.model.Profile;
 import com.thesis.receiptify.model.Recipe;
@@ -8,16 +9,24 @@ import com.thesis.receiptify.model.dto.ProfileDTO;
 import com.thesis.receiptify.model.dto.RecipeDTO;
 import com.thesis.receiptify.model.enums.Role;
 import com.thesis.receiptify.service.AdminService;
+import com.thesis.receiptify.service.RecommendationBatchService;
+import com.thesis.receiptify.service.RecommendationEvaluationService;
+import com.thesis.receiptify.service.RecommendationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -26,6 +35,10 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
+    private final RecommendationBatchService recommendationBatchService;
+    private final RecommendationService recommendationService;
+    private final RecommendationEvaluationService recommendationEvaluationService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/check-role")
     public ResponseEntity<Map<String, Boolean>> checkAdminRole(@AuthenticationPrincipal UserDetails userDetails) {
@@ -514,4 +527,102 @@ public class AdminController {
                     .body("Failed to moderate comment: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/recommendations/batch")
+    public ResponseEntity<?> getRecommendationBatchStatus(@AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            if (!adminService.isUserAdmin(userDetails.getUsername())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            return ResponseEntity.ok(recommendationBatchService.getStatus());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to retrieve recommendation batch status: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/recommendations/batch")
+    public ResponseEntity<?> startRecommendationBatch(@AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            if (!adminService.isUserAdmin(userDetails.getUsername())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            recommendationBatchService.startPrecomputation();
+            return ResponseEntity.accepted().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to start recommendation batch: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/recommendations/digest")
+    public ResponseEntity<?> streamRecommendationDigest(
+            @RequestBody List<String> usernames,
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            if (!adminService.isUserAdmin(userDetails.getUsername())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            // One JSON object per line, written as each user's recommendations are ready
+            StreamingResponseBody body = out -> recommendationService.computeRecommendationsForUsers(
+                    usernames, Math.max(1, Math.min(RecommendationService.MAX_RECOMMENDATIONS, limit)), result -> {
+                        try {
+                            out.write(objectMapper.writeValueAsBytes(result));
+                            out.write('\n');
+                            out.flush();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to compute recommendation digest: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/recommendations/evaluate")
+    public ResponseEntity<?> evaluateRecommendations(
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "0.8") double trainFraction,
+            @RequestParam(defaultValue = "1000") int maxUsers,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            if (!adminService.isUserAdmin(userDetails.getUsername())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            return ResponseEntity.ok(recommendationEvaluationService.evaluate(k, trainFraction, maxUsers));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to evaluate recommendations: " + e.getMessage());
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.thesis.receiptify.controller;
 
+import com.thesis.receiptify.model.dto.IngredientSuggestionDTO;
 import com.thesis.receiptify.model.enums.IngredientType;
+import com.thesis.receiptify.service.IngredientPairingService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Arrays;
@@ -13,7 +18,9 @@ import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/ingredients")
+@RequiredArgsConstructor
 public class IngredientController {
+    private final IngredientPairingService ingredientPairingService;
 
     @GetMapping
     public ResponseEntity<List<IngredientType>> getAllIngredientTypes() {
@@ -37,4 +44,27 @@ public class IngredientController {
 
         return ResponseEntity.ok(categories);
     }
+
+    @GetMapping("/{type}/pairings")
+    public ResponseEntity<List<IngredientSuggestionDTO>> getPairings(
+            @PathVariable IngredientType type,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(ingredientPairingService.getPairings(type, clampLimit(limit)));
+    }
+
+    @GetMapping("/{type}/substitutes")
+    public ResponseEntity<List<IngredientSuggestionDTO>> getSubstitutes(
+            @PathVariable IngredientType type,
+            @RequestParam(defaultValue = "5") int limit) {
+
+        return ResponseEntity.ok(ingredientPairingService.getSubstitutes(type, clampLimit(limit)));
+    }
+
+    /**
+     * Bounds a client-specified number of suggestions, so a huge value can't size the result buffers.
+     */
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(IngredientPairingService.MAX_SUGGESTIONS, limit));
+    }
 }
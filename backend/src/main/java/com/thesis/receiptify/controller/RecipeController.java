@@ -2,6 +2,7 @@ package com.thesis.receiptify.controller;
 
 import com.thesis.receiptify.model.dto.RecipeDTO;
 import com.thesis.receiptify.model.dto.RecipeSearchCriteriaDTO;
+import com.thesis.receiptify.model.dto.RecipeSummaryDTO;
 import com.thesis.receiptify.service.CollectionService;
 import com.thesis.receiptify.service.FileStorageService;
 import com.thesis.receiptify.service.RecipeService;
@@ -50,6 +51,22 @@ public class RecipeController {
         }
     }
 
+    /**
+     * Summaries of seasonal recipes for card views
+     */
+    @GetMapping("/seasonal/summary")
+    public ResponseEntity<Page<RecipeSummaryDTO>> getSeasonalRecipeSummaries(
+            @RequestParam(required = false, defaultValue = "70") int minSeasonalScore,
+            Pageable pageable) {
+
+        try {
+            Page<RecipeSummaryDTO> seasonalRecipes = recipeService.findSeasonalRecipeSummaries(minSeasonalScore, pageable);
+            return ResponseEntity.ok(seasonalRecipes);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<RecipeDTO> createRecipe(
             @Valid @RequestBody RecipeDTO recipeDTO,
@@ -109,6 +126,12 @@ public class RecipeController {
         return ResponseEntity.ok(recipes);
     }
 
+    @GetMapping("/summary")
+    public ResponseEntity<Page<RecipeSummaryDTO>> getAllRecipeSummaries(Pageable pageable) {
+        Page<RecipeSummaryDTO> recipes = recipeService.getAllRecipeSummaries(pageable);
+        return ResponseEntity.ok(recipes);
+    }
+
     @GetMapping("/user")
     public ResponseEntity<Page<RecipeDTO>> getUserRecipes(
             @AuthenticationPrincipal UserDetails userDetails,
@@ -125,6 +148,14 @@ public class RecipeController {
         return ResponseEntity.ok(recipes);
     }
 
+    @GetMapping("/search/summary")
+    public ResponseEntity<Page<RecipeSummaryDTO>> searchRecipeSummaries(
+            @RequestParam String query,
+            Pageable pageable) {
+        Page<RecipeSummaryDTO> recipes = recipeService.searchRecipeSummaries(query, pageable);
+        return ResponseEntity.ok(recipes);
+    }
+
     @PostMapping("/advanced-search")
     public ResponseEntity<Page<RecipeDTO>> advancedSearchRecipes(
             @RequestBody RecipeSearchCriteriaDTO criteria,
@@ -185,4 +216,17 @@ public class RecipeController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Get summaries of featured recipes for card views
+     */
+    @GetMapping("/featured/summary")
+    public ResponseEntity<Page<RecipeSummaryDTO>> getFeaturedRecipeSummaries(Pageable pageable) {
+        try {
+            Page<RecipeSummaryDTO> featuredRecipes = recipeService.getFeaturedRecipeSummaries(pageable);
+            return ResponseEntity.ok(featuredRecipes);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 }
\ No newline at end of file
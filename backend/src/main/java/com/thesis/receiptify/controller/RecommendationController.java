@@ -1,16 +1,21 @@
 package com.thesis.receiptify.controller;
 
 import com.thesis.receiptify.model.dto.RecipeDTO;
+import com.thesis.receiptify.model.dto.RecommendationPageDTO;
 import com.thesis.receiptify.service.InteractionService;
 import com.thesis.receiptify.service.RecommendationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/recommendations")
@@ -18,6 +23,14 @@ import java.util.List;
 public class RecommendationController {
     private final RecommendationService recommendationService;
     private final InteractionService interactionService;
+    private final ThreadPoolTaskExecutor recommendationRequestExecutor;
+
+    // Header set when the response holds fallback recommendations instead of the full result
+    private static final String DEGRADED_HEADER = "X-Recommendations-Degraded";
+
+    // Bounds of the client-specified deadline of the asynchronous endpoint
+    private static final long MIN_DEADLINE_MILLIS = 50;
+    private static final long MAX_DEADLINE_MILLIS = 10_000;
 
     @GetMapping("/for-user")
     public ResponseEntity<List<RecipeDTO>> getRecommendationsForUser(
@@ -29,10 +42,71 @@ public class RecommendationController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        List<RecipeDTO> recommendations =
-                recommendationService.getRecommendationsForUser(userDetails.getUsername(), limit, includePrevious);
+        RecommendationService.Recommendations recommendations = recommendationService.getRecommendationsForUser(
+                userDetails.getUsername(), clampLimit(limit), includePrevious);
+
+        return recommendationsResponse(recommendations);
+    }
+
+    @GetMapping("/for-user/page")
+    public ResponseEntity<?> getRecommendationPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includePrevious,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            RecommendationPageDTO page = recommendationService.getRecommendationPage(
+                    userDetails.getUsername(), cursor, clampLimit(size), includePrevious);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/for-user/async")
+    public DeferredResult<ResponseEntity<List<RecipeDTO>>> getRecommendationsForUserAsync(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean includePrevious,
+            @RequestParam(defaultValue = "1000") long deadlineMillis,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        long deadline = Math.max(MIN_DEADLINE_MILLIS, Math.min(MAX_DEADLINE_MILLIS, deadlineMillis));
+        int boundedLimit = clampLimit(limit);
+        DeferredResult<ResponseEntity<List<RecipeDTO>>> result = new DeferredResult<>(deadline);
+
+        if (userDetails == null) {
+            result.setResult(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+            return result;
+        }
+
+        String username = userDetails.getUsername();
+
+        // Past the deadline, answer with a cheaper result; the full computation still completes
+        // in the background and fills the recommendation cache for the next request
+        result.onTimeout(() -> result.setResult(fallbackRecommendations(username, boundedLimit, includePrevious)));
+
+        try {
+            CompletableFuture.supplyAsync(() -> recommendationService.getRecommendationsForUser(
+                    username, boundedLimit, includePrevious), recommendationRequestExecutor)
+                    .whenComplete((recommendations, e) -> {
+                        if (e == null) {
+                            result.setResult(recommendationsResponse(recommendations));
+                        } else if (!result.isSetOrExpired()) {
+                            System.err.println("Failed to compute recommendations for " + username + ": " + e.getMessage());
+                            result.setResult(fallbackRecommendations(username, boundedLimit, includePrevious));
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            // Pool saturated, don't wait for a slot
+            result.setResult(fallbackRecommendations(username, boundedLimit, includePrevious));
+        }
 
-        return ResponseEntity.ok(recommendations);
+        return result;
     }
 
     @GetMapping("/similar/{recipeId}")
@@ -40,7 +114,7 @@ public class RecommendationController {
             @PathVariable Long recipeId,
             @RequestParam(defaultValue = "6") int limit) {
 
-        List<RecipeDTO> similarRecipes = recommendationService.getSimilarRecipes(recipeId, limit);
+        List<RecipeDTO> similarRecipes = recommendationService.getSimilarRecipes(recipeId, clampLimit(limit));
         return ResponseEntity.ok(similarRecipes);
     }
 
@@ -48,10 +122,20 @@ public class RecommendationController {
     public ResponseEntity<List<RecipeDTO>> getSeasonalRecommendations(
             @RequestParam(defaultValue = "10") int limit) {
 
-        List<RecipeDTO> seasonalRecipes = recommendationService.getSeasonalRecommendations(limit);
+        List<RecipeDTO> seasonalRecipes = recommendationService.getSeasonalRecommendations(clampLimit(limit));
         return ResponseEntity.ok(seasonalRecipes);
     }
 
+    @GetMapping("/trending")
+    public ResponseEntity<List<RecipeDTO>> getTrendingRecipes(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cuisine,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        List<RecipeDTO> trendingRecipes = recommendationService.getTrendingRecipes(category, cuisine, clampLimit(limit));
+        return ResponseEntity.ok(trendingRecipes);
+    }
+
     @PostMapping("/track-view/{recipeId}")
     public ResponseEntity<?> trackRecipeView(
             @PathVariable Long recipeId,
@@ -78,4 +162,38 @@ public class RecommendationController {
         interactionService.saveRecipe(recipeId, userDetails.getUsername(), saved);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Bounds a client-specified number of recommendations, so a huge value can't size the result buffers.
+     */
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(RecommendationService.MAX_RECOMMENDATIONS, limit));
+    }
+
+    /**
+     * Builds a response with computed recommendations, marked as degraded if a scoring stage was left out.
+     */
+    private ResponseEntity<List<RecipeDTO>> recommendationsResponse(RecommendationService.Recommendations recommendations) {
+        if (recommendations.isDegraded()) {
+            return ResponseEntity.ok()
+                    .header(DEGRADED_HEADER, "true")
+                    .body(recommendations.getRecipes());
+        }
+        return ResponseEntity.ok(recommendations.getRecipes());
+    }
+
+    /**
+     * Builds a response with fallback recommendations, marked as degraded.
+     */
+    private ResponseEntity<List<RecipeDTO>> fallbackRecommendations(String username, int limit, boolean includePrevious) {
+        try {
+            List<RecipeDTO> recommendations =
+                    recommendationService.getFallbackRecommendationsForUser(username, limit, includePrevious);
+            return ResponseEntity.ok()
+                    .header(DEGRADED_HEADER, "true")
+                    .body(recommendations);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -14,6 +15,14 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Recipe.WITH_USER_AND_TAGS_GRAPH, attributeNodes = {
+                @NamedAttributeNode("user"),
+                @NamedAttributeNode("dietaryTags")
+        }),
+        @NamedEntityGraph(name = Recipe.WITH_INGREDIENTS_GRAPH, attributeNodes = @NamedAttributeNode("ingredients")),
+        @NamedEntityGraph(name = Recipe.WITH_STEPS_GRAPH, attributeNodes = @NamedAttributeNode("steps"))
+})
 @Table(indexes = {
         @Index(name = "idx_recipe_title", columnList = "title"),
         @Index(name = "idx_recipe_category", columnList = "category"),
@@ -25,6 +34,11 @@ import java.util.Set;
 @AllArgsConstructor
 @Builder
 public class Recipe {
+    // Entity graphs fetching the associations needed to map a recipe, one list per graph
+    public static final String WITH_USER_AND_TAGS_GRAPH = "Recipe.withUserAndTags";
+    public static final String WITH_INGREDIENTS_GRAPH = "Recipe.withIngredients";
+    public static final String WITH_STEPS_GRAPH = "Recipe.withSteps";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -55,6 +69,10 @@ public class Recipe {
     @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments = new ArrayList<>();
 
+    @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Builder.Default
+    private List<RecipeSeasonalScore> seasonalScores = new ArrayList<>();
+
     @ElementCollection
     private Set<String> dietaryTags = new HashSet<>();
 
@@ -80,6 +98,20 @@ public class Recipe {
     private LocalDateTime featuredAt;
     private String adminNotes;
 
+    // Rating and comment totals, changed only by atomic increments in the writing transaction.
+    // Never written from the entity, so saving a loaded recipe can't overwrite concurrent updates.
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int ratingSum;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int ratingCount;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int commentCount;
+
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
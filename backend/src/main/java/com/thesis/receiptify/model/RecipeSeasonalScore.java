@@ -0,0 +1,42 @@
+package com.thesis.receiptify.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Month;
+
+/**
+ * Seasonality score of a recipe for one month, computed from its ingredients whenever the
+ * recipe is written. Each recipe has one row per month, so seasonal listings are an indexed
+ * range scan on (month, score) instead of scoring every recipe per request. The month column is
+ * named season_month, as MONTH is a reserved word in some databases, H2 among them.
+ */
+@Entity
+@Table(name = "recipe_seasonal_scores",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"recipe_id", "season_month"}),
+        indexes = @Index(name = "idx_recipe_seasonal_scores_month_score", columnList = "season_month, score"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeSeasonalScore {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recipe_id", nullable = false)
+    @JsonIgnore
+    private Recipe recipe;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "season_month", nullable = false, length = 9)
+    private Month month;
+
+    @Column(nullable = false)
+    private Integer score;
+}
@@ -0,0 +1,39 @@
+package com.thesis.receiptify.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A precomputed neighbour entry of the item-item similarity index.
+ * Each recipe keeps up to a fixed number of its most similar recipes.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_recipe_similarity_recipe_score", columnList = "recipeId, score"),
+        @Index(name = "idx_recipe_similarity_similar_recipe", columnList = "similarRecipeId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeSimilarity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long recipeId;
+
+    @Column(nullable = false)
+    private Long similarRecipeId;
+
+    @Column(nullable = false)
+    private Double score;
+
+    private LocalDateTime computedAt;
+}
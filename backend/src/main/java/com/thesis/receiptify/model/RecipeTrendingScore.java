@@ -0,0 +1,31 @@
+package com.thesis.receiptify.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of a recipe's time-decayed trending score.
+ * The trending engine keeps its counters in memory and periodically writes them here,
+ * so they survive restarts.
+ */
+@Entity
+@Table(name = "recipe_trending_scores")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeTrendingScore {
+    @Id
+    private Long recipeId;
+
+    @Column(nullable = false)
+    private Double score;
+
+    @Column(nullable = false)
+    private LocalDateTime checkpointedAt;
+}
@@ -0,0 +1,42 @@
+package com.thesis.receiptify.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A precomputed recommendation for a user, written by the recommendation batch job.
+ * Each user keeps their top recommended recipes ordered by position.
+ */
+@Entity
+@Table(name = "user_recommendations", indexes = {
+        @Index(name = "idx_user_recommendations_user_position", columnList = "userId, position"),
+        @Index(name = "idx_user_recommendations_recipe", columnList = "recipeId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserRecommendation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long recipeId;
+
+    @Column(nullable = false)
+    private Double score;
+
+    @Column(nullable = false)
+    private Integer position;
+
+    private LocalDateTime generatedAt;
+}
@@ -0,0 +1,18 @@
+package com.thesis.receiptify.model.dto;
+
+import com.thesis.receiptify.model.enums.IngredientType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngredientSuggestionDTO {
+    private IngredientType ingredient;
+    private String displayName;
+    private double score;
+    private int sharedRecipes;
+}
@@ -0,0 +1,58 @@
+package com.thesis.receiptify.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The fields of a recipe shown on list and card views, without ingredients, steps or description.
+ * Loaded with a constructor projection straight from the recipe and author columns.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeSummaryDTO {
+    private Long id;
+    private String title;
+    private String imageUrl;
+    private String category;
+    private String cuisine;
+    private String difficulty;
+    private Integer prepTime;
+    private Integer cookTime;
+    private Integer bakingTime;
+    private UserDTO user;
+    private Double averageRating;
+    private Integer totalRatings;
+    private Integer totalComments;
+
+    /**
+     * Projection constructor, called by the recipe summary queries with the author's columns
+     * and the recipe's stored rating totals.
+     */
+    public RecipeSummaryDTO(Long id, String title, String imageUrl, String category, String cuisine,
+                            String difficulty, Integer prepTime, Integer cookTime, Integer bakingTime,
+                            Long userId, String username, String firstName, String lastName,
+                            Integer ratingSum, Integer ratingCount, Integer commentCount) {
+        this.id = id;
+        this.title = title;
+        this.imageUrl = imageUrl;
+        this.category = category;
+        this.cuisine = cuisine;
+        this.difficulty = difficulty;
+        this.prepTime = prepTime;
+        this.cookTime = cookTime;
+        this.bakingTime = bakingTime;
+        this.user = UserDTO.builder()
+                .id(userId)
+                .username(username)
+                .firstName(firstName)
+                .lastName(lastName)
+                .build();
+        this.averageRating = ratingCount > 0 ? (double) ratingSum / ratingCount : 0.0;
+        this.totalRatings = ratingCount;
+        this.totalComments = commentCount;
+    }
+}
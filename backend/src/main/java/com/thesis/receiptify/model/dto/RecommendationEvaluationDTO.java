@@ -0,0 +1,36 @@
+package com.thesis.receiptify.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RecommendationEvaluationDTO {
+    private LocalDateTime cutoff;
+    private int k;
+    private int trainInteractions;
+    private int testInteractions;
+    private int evaluatedUsers;
+    private int skippedUsers;
+    private boolean factorModelUsed;
+
+    private double contentWeight;
+    private double collaborativeWeight;
+    private double preferenceWeight;
+
+    private double precisionAtK;
+    private double recallAtK;
+
+    private double latencyP50Millis;
+    private double latencyP99Millis;
+    private Long meanAllocatedBytes;
+    private Long p99AllocatedBytes;
+}
@@ -0,0 +1,21 @@
+package com.thesis.receiptify.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserRecommendationsDTO {
+    private String username;
+    private List<Long> recipeIds;
+    private List<Double> scores;
+    private String error;
+}
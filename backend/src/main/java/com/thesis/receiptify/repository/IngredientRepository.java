@@ -2,8 +2,18 @@ package com.thesis.receiptify.repository;
 
 import com.thesis.receiptify.model.Ingredient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
+
+    @Query("SELECT i.recipe.id, i.type FROM Ingredient i")
+    List<Object[]> findAllRecipeIngredientTypes();
+
+    @Query("SELECT i.recipe.id, i.type FROM Ingredient i WHERE i.recipe.id IN ?1")
+    List<Object[]> findRecipeIngredientTypesByRecipeIdIn(Collection<Long> recipeIds);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,4 +19,10 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
 
     @Query("SELECT AVG(r.stars) FROM Rating r WHERE r.recipe.id = ?1")
     Double getAverageRatingByRecipeId(Long recipeId);
+
+    @Query("SELECT r.recipe.id, COUNT(r), SUM(r.stars) FROM Rating r GROUP BY r.recipe.id")
+    List<Object[]> findRatingTotalsByRecipe();
+
+    @Query("SELECT r.user.id, r.recipe.id, r.stars, r.createdAt FROM Rating r")
+    List<Object[]> findAllRatingEvents();
 }
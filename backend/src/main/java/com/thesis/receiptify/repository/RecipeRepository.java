@@ -2,29 +2,57 @@ package com.thesis.receiptify.repository;
 
 import com.thesis.receiptify.model.Profile;
 import com.thesis.receiptify.model.Recipe;
+import com.thesis.receiptify.model.dto.RecipeSummaryDTO;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Repository
 public interface RecipeRepository extends JpaRepository<Recipe, Long>, JpaSpecificationExecutor<Recipe> {
 
+    // Constructor projection shared by the summary queries; expects the recipe as r and its author as u
+    String SUMMARY_PROJECTION = "SELECT new com.thesis.receiptify.model.dto.RecipeSummaryDTO(" +
+            "r.id, r.title, r.imageUrl, r.category, r.cuisine, r.difficulty, r.prepTime, r.cookTime, r.bakingTime, " +
+            "u.id, u.username, u.firstName, u.lastName, r.ratingSum, r.ratingCount, r.commentCount) ";
+
     List<Recipe> findByUserOrderByCreatedAtDesc(Profile user);
 
-    Page<Recipe> findByUserOrderByCreatedAtDesc(Profile user, Pageable pageable);
+    @Query(value = "SELECT r.id FROM Recipe r WHERE r.user = ?1 ORDER BY r.createdAt DESC",
+            countQuery = "SELECT COUNT(r) FROM Recipe r WHERE r.user = ?1")
+    Page<Long> findIdsByUserOrderByCreatedAtDesc(Profile user, Pageable pageable);
 
-    Page<Recipe> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    @Query(value = "SELECT r.id FROM Recipe r ORDER BY r.createdAt DESC",
+            countQuery = "SELECT COUNT(r) FROM Recipe r")
+    Page<Long> findIdsByOrderByCreatedAtDesc(Pageable pageable);
 
     @Query("SELECT r FROM Recipe r WHERE " +
             "LOWER(r.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
             "LOWER(r.description) LIKE LOWER(CONCAT('%', :query, '%'))")
     Page<Recipe> searchRecipes(String query, Pageable pageable);
 
+    @Query(value = "SELECT r.id FROM Recipe r WHERE " +
+            "LOWER(r.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+            "LOWER(r.description) LIKE LOWER(CONCAT('%', :query, '%'))",
+            countQuery = "SELECT COUNT(r) FROM Recipe r WHERE " +
+                    "LOWER(r.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+                    "LOWER(r.description) LIKE LOWER(CONCAT('%', :query, '%'))")
+    Page<Long> searchRecipeIds(String query, Pageable pageable);
+
     @Query("SELECT DISTINCT r.category FROM Recipe r WHERE r.category IS NOT NULL")
     List<String> findDistinctCategories();
 
@@ -33,5 +61,109 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long>, JpaSpecif
 
     Page<Recipe> findByFeaturedTrue(Pageable pageable);
 
-    Page<Recipe> findByFeaturedTrueOrderByFeaturedAtDesc(Pageable pageable);
+    @Query(value = "SELECT r.id FROM Recipe r WHERE r.featured = true ORDER BY r.featuredAt DESC",
+            countQuery = "SELECT COUNT(r) FROM Recipe r WHERE r.featured = true")
+    Page<Long> findFeaturedIdsOrderByFeaturedAtDesc(Pageable pageable);
+
+    @Query(value = SUMMARY_PROJECTION + "FROM Recipe r JOIN r.user u ORDER BY r.createdAt DESC",
+            countQuery = "SELECT COUNT(r) FROM Recipe r")
+    Page<RecipeSummaryDTO> findSummariesByOrderByCreatedAtDesc(Pageable pageable);
+
+    @Query(value = SUMMARY_PROJECTION + "FROM Recipe r JOIN r.user u WHERE " +
+            "LOWER(r.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+            "LOWER(r.description) LIKE LOWER(CONCAT('%', :query, '%'))",
+            countQuery = "SELECT COUNT(r) FROM Recipe r WHERE " +
+                    "LOWER(r.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+                    "LOWER(r.description) LIKE LOWER(CONCAT('%', :query, '%'))")
+    Page<RecipeSummaryDTO> searchRecipeSummaries(String query, Pageable pageable);
+
+    @Query(value = SUMMARY_PROJECTION + "FROM Recipe r JOIN r.user u WHERE r.featured = true ORDER BY r.featuredAt DESC",
+            countQuery = "SELECT COUNT(r) FROM Recipe r WHERE r.featured = true")
+    Page<RecipeSummaryDTO> findFeaturedSummariesOrderByFeaturedAtDesc(Pageable pageable);
+
+    @Query(value = SUMMARY_PROJECTION + "FROM Recipe r JOIN r.user u JOIN r.seasonalScores s " +
+            "WHERE s.month = ?1 AND s.score >= ?2 ORDER BY s.score DESC, r.id",
+            countQuery = "SELECT COUNT(s) FROM RecipeSeasonalScore s WHERE s.month = ?1 AND s.score >= ?2")
+    Page<RecipeSummaryDTO> findSeasonalSummaries(Month month, int minScore, Pageable pageable);
+
+    @EntityGraph(Recipe.WITH_USER_AND_TAGS_GRAPH)
+    @Query("SELECT r FROM Recipe r WHERE r.id IN ?1")
+    List<Recipe> findWithUserAndTagsByIdIn(Collection<Long> ids);
+
+    @EntityGraph(Recipe.WITH_INGREDIENTS_GRAPH)
+    @Query("SELECT r FROM Recipe r WHERE r.id IN ?1")
+    List<Recipe> findWithIngredientsByIdIn(Collection<Long> ids);
+
+    @EntityGraph(Recipe.WITH_STEPS_GRAPH)
+    @Query("SELECT r FROM Recipe r WHERE r.id IN ?1")
+    List<Recipe> findWithStepsByIdIn(Collection<Long> ids);
+
+    /**
+     * Loads a page of recipes with their user, dietary tags, ingredients and steps.
+     * The recipes of the ID page are fetched through one entity graph per list, so the page costs
+     * three queries whatever its size; fetching both lists in one query would multiply their rows.
+     * Must run in a transaction, so all three queries fill the same managed recipes.
+     *
+     * @param ids A page of recipe IDs
+     * @return The page of recipes, in the order of the IDs
+     */
+    default Page<Recipe> findAllWithDetails(Page<Long> ids) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+
+        Map<Long, Recipe> recipes = new HashMap<>();
+        for (Recipe recipe : findWithUserAndTagsByIdIn(ids.getContent())) {
+            recipes.put(recipe.getId(), recipe);
+        }
+        findWithIngredientsByIdIn(ids.getContent());
+        findWithStepsByIdIn(ids.getContent());
+
+        List<Recipe> ordered = ids.getContent().stream()
+                .map(recipes::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(ordered, ids.getPageable(), ids.getTotalElements());
+    }
+
+    @Query("SELECT r.id, r.category, r.cuisine, r.difficulty, r.prepTime FROM Recipe r")
+    List<Object[]> findAllFeatureRows();
+
+    @Query("SELECT r.id, r.category, r.cuisine, r.difficulty, r.prepTime FROM Recipe r WHERE r.id IN ?1")
+    List<Object[]> findFeatureRowsByIdIn(Collection<Long> ids);
+
+    @Query("SELECT r.id FROM Recipe r")
+    List<Long> findAllIds();
+
+    @Query("SELECT r.id FROM Recipe r WHERE r.createdAt >= ?1 OR r.updatedAt >= ?1")
+    List<Long> findIdsChangedSince(LocalDateTime since);
+
+    @Query("SELECT r.id, r.ratingSum, r.ratingCount, r.commentCount FROM Recipe r WHERE r.id IN ?1")
+    List<Object[]> findRatingSummariesByIdIn(Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Recipe r SET r.ratingSum = r.ratingSum + ?2, r.ratingCount = r.ratingCount + ?3 WHERE r.id = ?1")
+    void adjustRatingTotals(Long recipeId, int starsDelta, int countDelta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Recipe r SET r.commentCount = r.commentCount + ?2 WHERE r.id = ?1")
+    void adjustCommentCount(Long recipeId, int delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Recipe r SET " +
+            "r.ratingSum = COALESCE((SELECT SUM(ra.stars) FROM Rating ra WHERE ra.recipe = r), 0), " +
+            "r.ratingCount = (SELECT COUNT(ra) FROM Rating ra WHERE ra.recipe = r), " +
+            "r.commentCount = (SELECT COUNT(c) FROM Comment c WHERE c.recipe = r) " +
+            "WHERE r.ratingSum <> COALESCE((SELECT SUM(ra.stars) FROM Rating ra WHERE ra.recipe = r), 0) " +
+            "OR r.ratingCount <> (SELECT COUNT(ra) FROM Rating ra WHERE ra.recipe = r) " +
+            "OR r.commentCount <> (SELECT COUNT(c) FROM Comment c WHERE c.recipe = r)")
+    int repairRatingTotals();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Recipe r SET " +
+            "r.ratingSum = COALESCE((SELECT SUM(ra.stars) FROM Rating ra WHERE ra.recipe = r), 0), " +
+            "r.ratingCount = (SELECT COUNT(ra) FROM Rating ra WHERE ra.recipe = r), " +
+            "r.commentCount = (SELECT COUNT(c) FROM Comment c WHERE c.recipe = r) " +
+            "WHERE r.id IN ?1")
+    int recountRatingTotalsByIdIn(Collection<Long> recipeIds);
 }
@@ -0,0 +1,27 @@
+package com.thesis.receiptify.repository;
+
+import com.thesis.receiptify.model.Recipe;
+import com.thesis.receiptify.model.RecipeSeasonalScore;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Month;
+import java.util.List;
+
+@Repository
+public interface RecipeSeasonalScoreRepository extends JpaRepository<RecipeSeasonalScore, Long> {
+
+    @Query(value = "SELECT s.recipe FROM RecipeSeasonalScore s WHERE s.month = ?1 AND s.score >= ?2 " +
+            "ORDER BY s.score DESC, s.recipe.id",
+            countQuery = "SELECT COUNT(s) FROM RecipeSeasonalScore s WHERE s.month = ?1 AND s.score >= ?2")
+    Page<Recipe> findRecipesByMonthAndMinScore(Month month, int minScore, Pageable pageable);
+
+    @Query("SELECT s.recipe.id FROM RecipeSeasonalScore s WHERE s.month = ?1 ORDER BY s.score DESC, s.recipe.id")
+    List<Long> findTopRecipeIdsByMonth(Month month, Pageable pageable);
+
+    @Query("SELECT r.id FROM Recipe r WHERE r.seasonalScores IS EMPTY")
+    List<Long> findRecipeIdsWithoutScores(Pageable pageable);
+}
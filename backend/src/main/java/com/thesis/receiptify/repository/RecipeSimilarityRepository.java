@@ -0,0 +1,38 @@
+package com.thesis.receiptify.repository;
+
+import com.thesis.receiptify.model.Recipe;
+import com.thesis.receiptify.model.RecipeSimilarity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RecipeSimilarityRepository extends JpaRepository<RecipeSimilarity, Long> {
+
+    @Query("SELECT r FROM RecipeSimilarity s JOIN Recipe r ON r.id = s.similarRecipeId " +
+            "WHERE s.recipeId = ?1 ORDER BY s.score DESC")
+    List<Recipe> findSimilarRecipes(Long recipeId, Pageable pageable);
+
+    List<RecipeSimilarity> findByRecipeIdOrderByScoreDesc(Long recipeId);
+
+    @Query("SELECT s.recipeId, COUNT(s), MIN(s.score) FROM RecipeSimilarity s " +
+            "WHERE s.recipeId IN ?1 GROUP BY s.recipeId")
+    List<Object[]> findNeighbourBoundsByRecipeIdIn(Collection<Long> recipeIds);
+
+    @Modifying
+    @Query("DELETE FROM RecipeSimilarity s WHERE s.recipeId = ?1")
+    void deleteByRecipeId(Long recipeId);
+
+    @Modifying
+    @Query("DELETE FROM RecipeSimilarity s WHERE s.similarRecipeId = ?1")
+    void deleteBySimilarRecipeId(Long recipeId);
+
+    @Modifying
+    @Query("DELETE FROM RecipeSimilarity s WHERE s.recipeId = ?1 OR s.similarRecipeId = ?1")
+    void deleteAllInvolvingRecipe(Long recipeId);
+}
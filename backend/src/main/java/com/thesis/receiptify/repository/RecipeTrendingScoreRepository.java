@@ -0,0 +1,9 @@
+package com.thesis.receiptify.repository;
+
+import com.thesis.receiptify.model.RecipeTrendingScore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RecipeTrendingScoreRepository extends JpaRepository<RecipeTrendingScore, Long> {
+}
@@ -3,9 +3,13 @@ package com.thesis.receiptify.repository;
 import com.thesis.receiptify.model.Profile;
 import com.thesis.receiptify.model.Recipe;
 import com.thesis.receiptify.model.UserInteraction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +18,34 @@ public interface UserInteractionRepository extends JpaRepository<UserInteraction
     List<UserInteraction> findByUser(Profile user);
     List<UserInteraction> findByUserOrderByViewCountDesc(Profile user);
     Optional<UserInteraction> findByUserAndRecipe(Profile user, Recipe recipe);
+
+    @Query("SELECT i.user.id, i.recipe.id, i.viewCount, i.saved FROM UserInteraction i")
+    List<Object[]> findAllInteractionCells();
+
+    @Query("SELECT i.user.id, i.recipe.id, i.viewCount, i.saved, i.firstInteraction FROM UserInteraction i")
+    List<Object[]> findAllInteractionEvents();
+
+    @Query("SELECT i.user.id, i.recipe.id, i.viewCount, i.saved FROM UserInteraction i WHERE i.lastInteraction >= ?1")
+    List<Object[]> findInteractionCellsChangedSince(LocalDateTime since);
+
+    @Query("SELECT DISTINCT i.user.id FROM UserInteraction i")
+    List<Long> findAllInteractingUserIds();
+
+    @Query("SELECT DISTINCT i.recipe.id FROM UserInteraction i")
+    List<Long> findAllInteractedRecipeIds();
+
+    @Query("SELECT i.user.id, i.recipe.id, i.viewCount FROM UserInteraction i WHERE i.user.id IN ?1")
+    List<Object[]> findRecipeViewsByUserIdIn(Collection<Long> userIds);
+
+    @Query("SELECT i.recipe.id, SUM(i.viewCount) FROM UserInteraction i GROUP BY i.recipe.id")
+    List<Object[]> findViewTotalsByRecipe();
+
+    @Query("SELECT i.recipe.id FROM UserInteraction i WHERE i.user.id = ?1")
+    List<Long> findRecipeIdsByUserId(Long userId);
+
+    @Query("SELECT i.recipe.id FROM UserInteraction i WHERE i.user.id = ?1 ORDER BY i.viewCount DESC")
+    List<Long> findRecipeIdsByUserIdOrderByViewCountDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT DISTINCT i.user.id FROM UserInteraction i WHERE i.lastInteraction >= ?1")
+    List<Long> findActiveUserIds(LocalDateTime since);
 }
@@ -0,0 +1,21 @@
+package com.thesis.receiptify.repository;
+
+import com.thesis.receiptify.model.UserRecommendation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserRecommendationRepository extends JpaRepository<UserRecommendation, Long> {
+
+    @Query("SELECT u FROM UserRecommendation u WHERE u.userId = ?1 AND u.generatedAt >= ?2 ORDER BY u.position")
+    List<UserRecommendation> findFreshByUserId(Long userId, LocalDateTime generatedAfter);
+
+    @Modifying
+    @Query("DELETE FROM UserRecommendation u WHERE u.userId = ?1")
+    void deleteByUserId(Long userId);
+}
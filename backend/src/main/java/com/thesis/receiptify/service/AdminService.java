@@ -5,6 +5,10 @@ import com.thesis.receiptify.model.dto.*;
 import com.thesis.receiptify.model.enums.IngredientType;
 import com.thesis.receiptify.model.enums.Role;
 import com.thesis.receiptify.repository.*;
+import com.thesis.receiptify.service.recommendation.InteractionMatrix;
+import com.thesis.receiptify.service.recommendation.RecipeFeatureStore;
+import com.thesis.receiptify.service.recommendation.RecommendationCacheEvictor;
+import com.thesis.receiptify.util.TransactionUtils;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -33,6 +37,12 @@ public class AdminService {
     private final RatingRepository ratingRepository;
     private final CollectionRepository collectionRepository;
     private final UserInteractionRepository interactionRepository;
+    private final RecipeSimilarityService recipeSimilarityService;
+    private final RecipeFeatureStore featureStore;
+    private final InteractionMatrix interactionMatrix;
+    private final RecommendationCacheEvictor recommendationCacheEvictor;
+    private final SeasonalityService seasonalityService;
+    private final RatingService ratingService;
 
     /**
      * Checks if a user has admin role.
@@ -194,6 +204,9 @@ public class AdminService {
 
         // Save and return updated profile
         Profile updatedProfile = profileRepository.save(profile);
+
+        // Recommendations computed from the old preferences are no longer valid
+        recommendationCacheEvictor.evictUser(updatedProfile.getId(), updatedProfile.getUsername());
         return mapToProfileDTO(updatedProfile);
     }
 
@@ -208,15 +221,24 @@ public class AdminService {
         Profile profile = profileRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
 
+        // Recipes whose rating and comment totals change, recounted once everything is deleted
+        Set<Long> affectedRecipeIds = new HashSet<>();
+
         // First delete all comments made by this user
         commentRepository.findAll().stream()
                 .filter(comment -> comment.getUser().getId().equals(profile.getId()))
-                .forEach(commentRepository::delete);
+                .forEach(comment -> {
+                    commentRepository.delete(comment);
+                    affectedRecipeIds.add(comment.getRecipe().getId());
+                });
 
         // Delete all ratings given by this user
         ratingRepository.findAll().stream()
                 .filter(rating -> rating.getUser().getId().equals(profile.getId()))
-                .forEach(ratingRepository::delete);
+                .forEach(rating -> {
+                    ratingRepository.delete(rating);
+                    affectedRecipeIds.add(rating.getRecipe().getId());
+                });
 
         // Delete all user's interactions
         interactionRepository.deleteAll(interactionRepository.findByUser(profile));
@@ -225,10 +247,23 @@ public class AdminService {
         collectionRepository.deleteAll(collectionRepository.findByUserOrderByNameAsc(profile));
 
         // Delete user's recipes - this will cascade delete ingredients, steps, ratings, and comments
-        recipeRepository.deleteAll(recipeRepository.findByUserOrderByCreatedAtDesc(profile));
+        List<Recipe> recipes = recipeRepository.findByUserOrderByCreatedAtDesc(profile);
+        recipeRepository.deleteAll(recipes);
+        for (Recipe recipe : recipes) {
+            Long recipeId = recipe.getId();
+            featureStore.remove(recipeId);
+            TransactionUtils.afterCommit(() -> recipeSimilarityService.removeRecipe(recipeId));
+            TransactionUtils.afterCommit(() -> interactionMatrix.removeRecipe(recipeId));
+        }
 
         // Finally delete the user
         profileRepository.delete(profile);
+        TransactionUtils.afterCommit(() -> interactionMatrix.removeUser(id));
+
+        // One recount as the last statement, so the flush and clear it needs can't detach anything still in use
+        if (!affectedRecipeIds.isEmpty()) {
+            recipeRepository.recountRatingTotalsByIdIn(affectedRecipeIds);
+        }
     }
 
     /**
@@ -292,9 +327,7 @@ public class AdminService {
                 .orElseThrow(() -> new EntityNotFoundException("Recipe not found"));
 
         // Get rating information
-        Double averageRating = ratingRepository.getAverageRatingByRecipeId(recipe.getId());
-        Integer totalRatings = ratingRepository.countByRecipeId(recipe.getId());
-        Integer totalComments = commentRepository.countByRecipeId(recipe.getId());
+        RecipeRatingSummaryDTO summary = ratingService.summarize(recipe);
 
         // Create DTO with all recipe details
         RecipeDTO recipeDTO = RecipeDTO.builder()
@@ -319,9 +352,9 @@ public class AdminService {
                         .firstName(recipe.getUser().getFirstName())
                         .lastName(recipe.getUser().getLastName())
                         .build())
-                .averageRating(averageRating != null ? averageRating : 0.0)
-                .totalRatings(totalRatings != null ? totalRatings : 0)
-                .totalComments(totalComments != null ? totalComments : 0)
+                .averageRating(summary.getAverageRating())
+                .totalRatings(summary.getTotalRatings())
+                .totalComments(summary.getTotalComments())
                 .build();
 
         // Add ingredients
@@ -396,7 +429,10 @@ public class AdminService {
             }
         }
 
+        seasonalityService.updateSeasonalScores(recipe);
         Recipe updatedRecipe = recipeRepository.save(recipe);
+        featureStore.refresh(updatedRecipe);
+        TransactionUtils.afterCommit(() -> recipeSimilarityService.refreshRecipe(id));
         return getRecipeById(updatedRecipe.getId()); // Use the improved getRecipeById method
     }
 
@@ -420,6 +456,9 @@ public class AdminService {
 
         // Delete the recipe (which will cascade to ingredients, steps, etc.)
         recipeRepository.delete(recipe);
+        featureStore.remove(id);
+        TransactionUtils.afterCommit(() -> recipeSimilarityService.removeRecipe(id));
+        TransactionUtils.afterCommit(() -> interactionMatrix.removeRecipe(id));
     }
 
     /**
@@ -501,6 +540,7 @@ public class AdminService {
                 .orElseThrow(() -> new EntityNotFoundException("Comment not found"));
 
         commentRepository.delete(comment);
+        recipeRepository.adjustCommentCount(comment.getRecipe().getId(), -1);
     }
 
     /**
@@ -538,9 +578,7 @@ public class AdminService {
      * @return The corresponding RecipeDTO
      */
     private RecipeDTO mapToRecipeDTO(Recipe recipe) {
-        Double averageRating = ratingRepository.getAverageRatingByRecipeId(recipe.getId());
-        Integer totalRatings = ratingRepository.countByRecipeId(recipe.getId());
-        Integer totalComments = commentRepository.countByRecipeId(recipe.getId());
+        RecipeRatingSummaryDTO summary = ratingService.summarize(recipe);
 
         return RecipeDTO.builder()
                 .id(recipe.getId())
@@ -564,9 +602,9 @@ public class AdminService {
                         .firstName(recipe.getUser().getFirstName())
                         .lastName(recipe.getUser().getLastName())
                         .build())
-                .averageRating(averageRating != null ? averageRating : 0.0)
-                .totalRatings(totalRatings != null ? totalRatings : 0)
-                .totalComments(totalComments != null ? totalComments : 0)
+                .averageRating(summary.getAverageRating())
+                .totalRatings(summary.getTotalRatings())
+                .totalComments(summary.getTotalComments())
                 .build();
     }
 
@@ -726,16 +764,11 @@ public class AdminService {
                 .sum();
         stats.put("viewCount", viewCount);
 
-        // Rating statistics
-        Double avgRating = ratingRepository.getAverageRatingByRecipeId(recipeId);
-        stats.put("avgRating", avgRating != null ? avgRating : 0.0);
-
-        Integer ratingCount = ratingRepository.countByRecipeId(recipeId);
-        stats.put("ratingCount", ratingCount != null ? ratingCount : 0);
-
-        // Comment statistics
-        Integer commentCount = commentRepository.countByRecipeId(recipeId);
-        stats.put("commentCount", commentCount != null ? commentCount : 0);
+        // Rating and comment statistics
+        RecipeRatingSummaryDTO summary = ratingService.summarize(recipe);
+        stats.put("avgRating", summary.getAverageRating());
+        stats.put("ratingCount", summary.getTotalRatings());
+        stats.put("commentCount", summary.getTotalComments());
 
         // Collection statistics (number of collections this recipe is in)
         long collectionCount = collectionRepository.findAllContainingRecipe(recipe).size();
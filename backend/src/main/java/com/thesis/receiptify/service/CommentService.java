@@ -28,6 +28,7 @@ public class CommentService {
     private final CommentRepository commentRepository;
     private final RecipeRepository recipeRepository;
     private final ProfileRepository profileRepository;
+    private final TrendingService trendingService;
 
     /**
      * Adds a new comment to a recipe.
@@ -53,6 +54,8 @@ public class CommentService {
                 .build();
 
         Comment savedComment = commentRepository.save(comment);
+        recipeRepository.adjustCommentCount(recipe.getId(), 1);
+        trendingService.recordComment(recipe.getId());
         return mapToDTO(savedComment);
     }
 
@@ -103,6 +106,7 @@ public class CommentService {
         }
 
         commentRepository.delete(comment);
+        recipeRepository.adjustCommentCount(comment.getRecipe().getId(), -1);
     }
 
     /**
@@ -0,0 +1,66 @@
+package com.thesis.receiptify.service;
+
+import com.thesis.receiptify.model.dto.IngredientSuggestionDTO;
+import com.thesis.receiptify.model.enums.IngredientType;
+import com.thesis.receiptify.service.recommendation.IngredientCooccurrenceMatrix;
+import com.thesis.receiptify.service.recommendation.TopK;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service responsible for ingredient suggestions: ingredients that go well with an ingredient,
+ * and ingredients that can stand in for it. Served from the in-memory
+ * {@link IngredientCooccurrenceMatrix}, without database access.
+ */
+@Service
+@RequiredArgsConstructor
+public class IngredientPairingService {
+    /**
+     * Maximum number of suggestions a client may request at once.
+     */
+    public static final int MAX_SUGGESTIONS = 100;
+
+    private static final IngredientType[] TYPES = IngredientType.values();
+
+    private final IngredientCooccurrenceMatrix cooccurrenceMatrix;
+
+    /**
+     * Gets the ingredients used together with an ingredient notably more often than chance.
+     *
+     * @param type The ingredient type
+     * @param limit The maximum number of suggestions to return
+     * @return The pairing ingredients, best first, scored by their PPMI with the ingredient
+     */
+    public List<IngredientSuggestionDTO> getPairings(IngredientType type, int limit) {
+        return toSuggestions(type, cooccurrenceMatrix.findPairings(type, limit));
+    }
+
+    /**
+     * Gets the ingredients of the same category that are used with the same other ingredients,
+     * and so can usually replace the ingredient.
+     *
+     * @param type The ingredient type
+     * @param limit The maximum number of suggestions to return
+     * @return The substitute ingredients, best first, scored by their context similarity between 0.0 and 1.0
+     */
+    public List<IngredientSuggestionDTO> getSubstitutes(IngredientType type, int limit) {
+        return toSuggestions(type, cooccurrenceMatrix.findSubstitutes(type, limit));
+    }
+
+    private List<IngredientSuggestionDTO> toSuggestions(IngredientType type, TopK ranking) {
+        List<IngredientSuggestionDTO> suggestions = new ArrayList<>(ranking.size());
+        for (int i = 0; i < ranking.size(); i++) {
+            IngredientType suggested = TYPES[(int) ranking.id(i)];
+            suggestions.add(IngredientSuggestionDTO.builder()
+                    .ingredient(suggested)
+                    .displayName(suggested.getDisplayName())
+                    .score(ranking.score(i))
+                    .sharedRecipes(cooccurrenceMatrix.sharedRecipes(type, suggested))
+                    .build());
+        }
+        return suggestions;
+    }
+}
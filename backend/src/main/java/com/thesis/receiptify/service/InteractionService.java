@@ -6,6 +6,9 @@ import com.thesis.receiptify.model.UserInteraction;
 import com.thesis.receiptify.repository.ProfileRepository;
 import com.thesis.receiptify.repository.RecipeRepository;
 import com.thesis.receiptify.repository.UserInteractionRepository;
+import com.thesis.receiptify.service.recommendation.InteractionMatrix;
+import com.thesis.receiptify.service.recommendation.RecommendationCacheEvictor;
+import com.thesis.receiptify.util.TransactionUtils;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -20,6 +23,9 @@ public class InteractionService {
     private final UserInteractionRepository interactionRepository;
     private final ProfileRepository profileRepository;
     private final RecipeRepository recipeRepository;
+    private final InteractionMatrix interactionMatrix;
+    private final TrendingService trendingService;
+    private final RecommendationCacheEvictor recommendationCacheEvictor;
 
     /**
      * Tracks a user viewing a recipe.
@@ -56,6 +62,9 @@ public class InteractionService {
         }
 
         interactionRepository.save(interaction);
+        recordAfterCommit(user.getId(), recipe.getId(), interaction.getViewCount(), interaction.getSaved());
+        trendingService.recordView(recipe.getId());
+        recommendationCacheEvictor.evictUser(user.getId(), username);
     }
 
     /**
@@ -94,6 +103,19 @@ public class InteractionService {
         }
 
         interactionRepository.save(interaction);
+        recordAfterCommit(user.getId(), recipe.getId(), interaction.getViewCount(), interaction.getSaved());
+        if (saved) {
+            trendingService.recordSave(recipe.getId());
+        }
+        recommendationCacheEvictor.evictUser(user.getId(), username);
+    }
+
+    /**
+     * Records an interaction in the matrix once the transaction has committed,
+     * so a rolled back write never reaches collaborative filtering.
+     */
+    private void recordAfterCommit(Long userId, Long recipeId, Integer viewCount, Boolean saved) {
+        TransactionUtils.afterCommit(() -> interactionMatrix.record(userId, recipeId, viewCount, saved));
     }
 }
 
@@ -6,6 +6,7 @@ import com.thesis.receiptify.model.dto.ProfileDTO;
 import com.thesis.receiptify.model.enums.IngredientType;
 import com.thesis.receiptify.repository.ProfileRepository;
 import com.thesis.receiptify.repository.RecipeRepository;
+import com.thesis.receiptify.service.recommendation.RecommendationCacheEvictor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -26,6 +27,7 @@ public class ProfileService {
     private final ProfileRepository profileRepository;
     private final PasswordEncoder passwordEncoder;
     private final RecipeRepository recipeRepository;
+    private final RecommendationCacheEvictor recommendationCacheEvictor;
 
     private static final Set<String> COMMON_STAPLES = Set.of(
             "SALT", "PEPPER", "WATER", "OIL", "OLIVE_OIL", "BUTTER",
@@ -236,6 +238,9 @@ public class ProfileService {
         }
 
         Profile updatedProfile = profileRepository.save(profile);
+
+        // Recommendations computed from the old preferences are no longer valid
+        recommendationCacheEvictor.evictUser(updatedProfile.getId(), username);
         return mapToDTO(updatedProfile);
     }
 
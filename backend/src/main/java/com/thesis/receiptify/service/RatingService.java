@@ -9,13 +9,18 @@ import com.thesis.receiptify.model.dto.UserDTO;
 import com.thesis.receiptify.repository.ProfileRepository;
 import com.thesis.receiptify.repository.RatingRepository;
 import com.thesis.receiptify.repository.RecipeRepository;
-import com.thesis.receiptify.repository.CommentRepository;
+import com.thesis.receiptify.service.recommendation.RecommendationCacheEvictor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -29,7 +34,8 @@ public class RatingService {
     private final RatingRepository ratingRepository;
     private final RecipeRepository recipeRepository;
     private final ProfileRepository profileRepository;
-    private final CommentRepository commentRepository;
+    private final RecommendationCacheEvictor recommendationCacheEvictor;
+    private final TrendingService trendingService;
 
     /**
      * Rates a recipe or updates an existing rating.
@@ -57,9 +63,11 @@ public class RatingService {
         Optional<Rating> existingRating = ratingRepository.findByUserAndRecipe(user, recipe);
 
         Rating rating;
+        int previousStars = 0;
         if (existingRating.isPresent()) {
             // Update existing rating
             rating = existingRating.get();
+            previousStars = rating.getStars();
             rating.setStars(ratingDTO.getStars());
             rating.setUpdatedAt(LocalDateTime.now());
         } else {
@@ -73,6 +81,10 @@ public class RatingService {
         }
 
         Rating savedRating = ratingRepository.save(rating);
+        recipeRepository.adjustRatingTotals(recipe.getId(), savedRating.getStars() - previousStars,
+                existingRating.isPresent() ? 0 : 1);
+        recommendationCacheEvictor.evictUser(user.getId(), username);
+        trendingService.recordRating(recipe.getId(), savedRating.getStars());
         return mapToDTO(savedRating);
     }
 
@@ -112,15 +124,60 @@ public class RatingService {
             throw new EntityNotFoundException("Recipe not found");
         }
 
-        Double averageRating = ratingRepository.getAverageRatingByRecipeId(recipeId);
-        Integer totalRatings = ratingRepository.countByRecipeId(recipeId);
-        Integer totalComments = commentRepository.countByRecipeId(recipeId);
+        return getRecipeRatingSummaries(List.of(recipeId)).get(recipeId);
+    }
+
+    /**
+     * Gets the rating and comment summary of a loaded recipe from its stored totals, without a query.
+     *
+     * @param recipe The Recipe entity
+     * @return Summary DTO with average rating, total ratings, and total comments
+     */
+    public RecipeRatingSummaryDTO summarize(Recipe recipe) {
+        return summary(recipe.getId(), recipe.getRatingSum(), recipe.getRatingCount(), recipe.getCommentCount());
+    }
+
+    /**
+     * Gets the rating and comment summaries of many recipes by ID with a single query.
+     *
+     * @param recipeIds The IDs of the recipes
+     * @return Map of every given recipe ID to its summary; recipes that don't exist have an empty summary
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, RecipeRatingSummaryDTO> getRecipeRatingSummaries(Collection<Long> recipeIds) {
+        Map<Long, RecipeRatingSummaryDTO> summaries = new HashMap<>();
+        if (!recipeIds.isEmpty()) {
+            // (recipe ID, rating sum, rating count, comment count)
+            for (Object[] row : recipeRepository.findRatingSummariesByIdIn(recipeIds)) {
+                Long recipeId = (Long) row[0];
+                summaries.put(recipeId, summary(recipeId, (Integer) row[1], (Integer) row[2], (Integer) row[3]));
+            }
+        }
+
+        for (Long recipeId : recipeIds) {
+            summaries.computeIfAbsent(recipeId, id -> summary(id, 0, 0, 0));
+        }
+        return summaries;
+    }
+
+    /**
+     * Recomputes the stored rating and comment totals of every recipe from the ratings and comments,
+     * correcting any that drifted, such as totals of recipes created before they were maintained.
+     *
+     * @return The number of recipes whose totals were corrected
+     */
+    @Scheduled(cron = "0 45 3 * * *")
+    @Transactional
+    public int repairRatingTotals() {
+        return recipeRepository.repairRatingTotals();
+    }
 
+    private static RecipeRatingSummaryDTO summary(Long recipeId, int ratingSum, int ratingCount, int commentCount) {
         return RecipeRatingSummaryDTO.builder()
                 .recipeId(recipeId)
-                .averageRating(averageRating != null ? averageRating : 0.0)
-                .totalRatings(totalRatings != null ? totalRatings : 0)
-                .totalComments(totalComments != null ? totalComments : 0)
+                .averageRating(ratingCount > 0 ? (double) ratingSum / ratingCount : 0.0)
+                .totalRatings(ratingCount)
+                .totalComments(commentCount)
                 .build();
     }
 
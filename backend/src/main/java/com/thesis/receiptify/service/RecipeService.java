@@ -5,10 +5,13 @@ import com.thesis.receiptify.model.Collection;
 import com.thesis.receiptify.model.dto.*;
 import com.thesis.receiptify.repository.*;
 import com.thesis.receiptify.repository.specification.RecipeSpecification;
+import com.thesis.receiptify.service.recommendation.InteractionMatrix;
+import com.thesis.receiptify.service.recommendation.RecipeFeatureStore;
+import com.thesis.receiptify.util.TransactionUtils;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,8 +34,12 @@ public class RecipeService {
     private final CollectionService collectionService;
     private final CollectionRepository collectionRepository;
     private final RatingRepository ratingRepository;
-    private final CommentRepository commentRepository;
+    private final RatingService ratingService;
     private final SeasonalityService seasonalityService;
+    private final RecipeSimilarityService recipeSimilarityService;
+    private final RecipeFeatureStore featureStore;
+    private final InteractionMatrix interactionMatrix;
+    private final RecipeSeasonalScoreRepository seasonalScoreRepository;
 
     /**
      * Creates a new recipe from the provided DTO.
@@ -92,10 +99,15 @@ public class RecipeService {
             }
         }
 
+        seasonalityService.updateSeasonalScores(recipe);
         Recipe savedRecipe = recipeRepository.save(recipe);
 
         collectionService.handleNewRecipe(savedRecipe, username);
 
+        featureStore.refresh(savedRecipe);
+        Long recipeId = savedRecipe.getId();
+        TransactionUtils.afterCommit(() -> recipeSimilarityService.refreshRecipe(recipeId));
+
         return mapToDTO(savedRecipe, null);
     }
 
@@ -150,7 +162,8 @@ public class RecipeService {
      */
     @Transactional(readOnly = true)
     public Page<RecipeDTO> getAllRecipes(Pageable pageable) {
-        return recipeRepository.findAllByOrderByCreatedAtDesc(pageable)
+        Page<Long> recipeIds = recipeRepository.findIdsByOrderByCreatedAtDesc(pageable);
+        return recipeRepository.findAllWithDetails(recipeIds)
                 .map(recipe -> mapToDTO(recipe, null));
     }
 
@@ -166,7 +179,8 @@ public class RecipeService {
     public Page<RecipeDTO> getUserRecipes(String username, Pageable pageable) {
         Profile user = profileRepository.findByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        return recipeRepository.findByUserOrderByCreatedAtDesc(user, pageable)
+        Page<Long> recipeIds = recipeRepository.findIdsByUserOrderByCreatedAtDesc(user, pageable);
+        return recipeRepository.findAllWithDetails(recipeIds)
                 .map(recipe -> mapToDTO(recipe, null));
     }
 
@@ -179,7 +193,8 @@ public class RecipeService {
      */
     @Transactional(readOnly = true)
     public Page<RecipeDTO> searchRecipes(String query, Pageable pageable) {
-        return recipeRepository.searchRecipes(query, pageable)
+        Page<Long> recipeIds = recipeRepository.searchRecipeIds(query, pageable);
+        return recipeRepository.findAllWithDetails(recipeIds)
                 .map(recipe -> mapToDTO(recipe, null));
     }
 
@@ -276,7 +291,10 @@ public class RecipeService {
             recipe.addStep(step);
         }
 
+        seasonalityService.updateSeasonalScores(recipe);
         Recipe updatedRecipe = recipeRepository.save(recipe);
+        featureStore.refresh(updatedRecipe);
+        TransactionUtils.afterCommit(() -> recipeSimilarityService.refreshRecipe(id));
         return mapToDTO(updatedRecipe, null);
     }
 
@@ -307,6 +325,9 @@ public class RecipeService {
         }
 
         recipeRepository.delete(recipe);
+        featureStore.remove(id);
+        TransactionUtils.afterCommit(() -> recipeSimilarityService.removeRecipe(id));
+        TransactionUtils.afterCommit(() -> interactionMatrix.removeRecipe(id));
     }
 
     /**
@@ -354,31 +375,34 @@ public class RecipeService {
      */
     @Transactional(readOnly = true)
     public Page<RecipeDTO> findSeasonalRecipes(int minSeasonalScore, Pageable pageable) {
-        // Get all recipes
-        List<Recipe> allRecipes = recipeRepository.findAll();
-
-        // Process them to include seasonality information and filter by score
-        List<RecipeDTO> seasonalRecipes = allRecipes.stream()
-                .map(recipe -> {
-                    RecipeDTO dto = mapToDTO(recipe, null);
-                    RecipeSeasonalityDTO seasonalityDTO = seasonalityService.analyzeRecipeSeasonality(recipe);
-                    dto.setSeasonalityInfo(seasonalityDTO);
-                    return dto;
-                })
-                .filter(dto -> dto.getSeasonalityInfo().getSeasonalScore() >= minSeasonalScore)
-                // Sort by seasonality score in descending order
-                .sorted(Comparator.comparing(dto -> dto.getSeasonalityInfo().getSeasonalScore(), Comparator.reverseOrder()))
-                .collect(Collectors.toList());
-
-        // Create a new page with the filtered and sorted content
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), seasonalRecipes.size());
+        // Filtered, sorted by seasonality score and paged by the database using the precomputed monthly scores
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+
+        Page<Recipe> recipes = seasonalScoreRepository
+                .findRecipesByMonthAndMinScore(seasonalityService.getCurrentMonth(), minSeasonalScore, page);
+
+        return recipes.map(recipe -> {
+            RecipeDTO dto = mapToDTO(recipe, null);
+            RecipeSeasonalityDTO seasonalityDTO = seasonalityService.analyzeRecipeSeasonality(recipe);
+            dto.setSeasonalityInfo(seasonalityDTO);
+            return dto;
+        });
+    }
 
-        return new PageImpl<>(
-                start >= seasonalRecipes.size() ? List.of() : seasonalRecipes.subList(start, end),
-                pageable,
-                seasonalRecipes.size()
-        );
+    /**
+     * Computes the monthly seasonal scores of recipes that don't have them yet,
+     * such as recipes created before the scores were introduced.
+     *
+     * @param batchSize The maximum number of recipes to score
+     * @return The number of recipes scored; 0 once every recipe has its scores
+     */
+    @Transactional
+    public int backfillSeasonalScores(int batchSize) {
+        List<Long> recipeIds = seasonalScoreRepository.findRecipeIdsWithoutScores(PageRequest.of(0, batchSize));
+        for (Recipe recipe : recipeRepository.findAllById(recipeIds)) {
+            seasonalityService.updateSeasonalScores(recipe);
+        }
+        return recipeIds.size();
     }
 
     /**
@@ -389,10 +413,59 @@ public class RecipeService {
      */
     @Transactional(readOnly = true)
     public Page<RecipeDTO> getFeaturedRecipes(Pageable pageable) {
-        return recipeRepository.findByFeaturedTrueOrderByFeaturedAtDesc(pageable)
+        Page<Long> recipeIds = recipeRepository.findFeaturedIdsOrderByFeaturedAtDesc(pageable);
+        return recipeRepository.findAllWithDetails(recipeIds)
                 .map(recipe -> mapToDTO(recipe, null));
     }
 
+    /**
+     * Retrieves summaries of all recipes with pagination, for list and card views.
+     *
+     * @param pageable Pagination information
+     * @return A page of recipe summary DTOs
+     */
+    @Transactional(readOnly = true)
+    public Page<RecipeSummaryDTO> getAllRecipeSummaries(Pageable pageable) {
+        return recipeRepository.findSummariesByOrderByCreatedAtDesc(pageable);
+    }
+
+    /**
+     * Searches for recipes by text query with pagination, returning their summaries.
+     *
+     * @param query The search query to match against recipe title and description
+     * @param pageable Pagination information
+     * @return A page of recipe summary DTOs matching the search criteria
+     */
+    @Transactional(readOnly = true)
+    public Page<RecipeSummaryDTO> searchRecipeSummaries(String query, Pageable pageable) {
+        return recipeRepository.searchRecipeSummaries(query, pageable);
+    }
+
+    /**
+     * Retrieves summaries of featured recipes with pagination.
+     *
+     * @param pageable Pagination information
+     * @return A page of featured recipe summary DTOs
+     */
+    @Transactional(readOnly = true)
+    public Page<RecipeSummaryDTO> getFeaturedRecipeSummaries(Pageable pageable) {
+        return recipeRepository.findFeaturedSummariesOrderByFeaturedAtDesc(pageable);
+    }
+
+    /**
+     * Finds summaries of seasonal recipes with a minimum seasonality score, best first.
+     *
+     * @param minSeasonalScore The minimum seasonality score (0-100)
+     * @param pageable Pagination information
+     * @return A page of seasonal recipe summary DTOs
+     */
+    @Transactional(readOnly = true)
+    public Page<RecipeSummaryDTO> findSeasonalRecipeSummaries(int minSeasonalScore, Pageable pageable) {
+        // Always ordered by seasonality score, like the full seasonal listing
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        return recipeRepository.findSeasonalSummaries(seasonalityService.getCurrentMonth(), minSeasonalScore, page);
+    }
+
     /**
      * Maps a Recipe entity to a RecipeDTO.
      *
@@ -401,6 +474,8 @@ public class RecipeService {
      * @return The corresponding RecipeDTO
      */
     private RecipeDTO mapToDTO(Recipe recipe, Integer userRating) {
+        RecipeRatingSummaryDTO summary = ratingService.summarize(recipe);
+
         List<IngredientDTO> ingredientDTOs = recipe.getIngredients().stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
@@ -409,11 +484,6 @@ public class RecipeService {
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
 
-        // Get rating and comment information
-        Double averageRating = ratingRepository.getAverageRatingByRecipeId(recipe.getId());
-        Integer totalRatings = ratingRepository.countByRecipeId(recipe.getId());
-        Integer totalComments = commentRepository.countByRecipeId(recipe.getId());
-
         return RecipeDTO.builder()
                 .id(recipe.getId())
                 .title(recipe.getTitle())
@@ -439,9 +509,9 @@ public class RecipeService {
                 .panSize(recipe.getPanSize())
                 .bakingMethod(recipe.getBakingMethod())
                 .dietaryTags(recipe.getDietaryTags())
-                .averageRating(averageRating != null ? averageRating : 0.0)
-                .totalRatings(totalRatings != null ? totalRatings : 0)
-                .totalComments(totalComments != null ? totalComments : 0)
+                .averageRating(summary.getAverageRating())
+                .totalRatings(summary.getTotalRatings())
+                .totalComments(summary.getTotalComments())
                 .userRating(userRating)
                 .build();
     }
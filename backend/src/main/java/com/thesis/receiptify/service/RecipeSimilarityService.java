@@ -0,0 +1,246 @@
+package com.thesis.receiptify.service;
+
+import com.thesis.receiptify.model.RecipeSimilarity;
+import com.thesis.receiptify.repository.RecipeSimilarityRepository;
+import com.thesis.receiptify.service.recommendation.CatalogueColumns;
+import com.thesis.receiptify.service.recommendation.LongDoubleMap;
+import com.thesis.receiptify.service.recommendation.RecipeFeatureStore;
+import com.thesis.receiptify.service.recommendation.RecipeFeatures;
+import com.thesis.receiptify.service.recommendation.TopK;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Service responsible for maintaining the item-item similarity index.
+ * Keeps the top similar recipes of every recipe in the recipe_similarity table so that
+ * similar-recipe lookups don't have to compare against the whole catalogue.
+ */
+@Service
+public class RecipeSimilarityService {
+
+    /**
+     * Maximum number of neighbours stored per recipe.
+     */
+    public static final int MAX_NEIGHBOURS = 20;
+
+    // Number of recipes whose stored neighbours are looked up per query when a recipe is indexed
+    private static final int REVERSE_LOOKUP_CHUNK_SIZE = 500;
+
+    private final RecipeFeatureStore featureStore;
+    private final RecipeSimilarityRepository recipeSimilarityRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public RecipeSimilarityService(RecipeFeatureStore featureStore,
+                                   RecipeSimilarityRepository recipeSimilarityRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.featureStore = featureStore;
+        this.recipeSimilarityRepository = recipeSimilarityRepository;
+        // Index writes always run in their own transaction, even when called from a read-only one
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Recomputes the neighbours of a single recipe in the background, and inserts the
+     * recipe into the neighbour lists of the recipes it now ranks among the best for.
+     *
+     * @param recipeId The ID of the created or updated recipe
+     */
+    @Async
+    public void refreshRecipe(Long recipeId) {
+        indexRecipe(recipeId);
+    }
+
+    /**
+     * Removes a deleted recipe from the index in the background.
+     *
+     * @param recipeId The ID of the deleted recipe
+     */
+    @Async
+    public void removeRecipe(Long recipeId) {
+        transactionTemplate.executeWithoutResult(status ->
+                recipeSimilarityRepository.deleteAllInvolvingRecipe(recipeId));
+    }
+
+    /**
+     * Recomputes and stores the neighbours of a single recipe.
+     * Similarity is symmetric, so the same scores also decide whether the recipe belongs in the
+     * neighbour lists of other recipes: entries pointing at it are dropped, since they were computed
+     * from its old features, and it is inserted into every list whose lowest score it beats, or
+     * which isn't full. A list it was dropped from and no longer qualifies for stays one entry
+     * short until the nightly rebuild.
+     *
+     * @param recipeId The ID of the recipe to index
+     */
+    public void indexRecipe(Long recipeId) {
+        RecipeFeatures target = featureStore.get(recipeId);
+        if (target == null) {
+            transactionTemplate.executeWithoutResult(status ->
+                    recipeSimilarityRepository.deleteAllInvolvingRecipe(recipeId));
+            return;
+        }
+
+        LongDoubleMap similarities = scoreCandidates(target);
+        List<RecipeSimilarity> neighbours = toNeighbours(recipeId, TopK.of(MAX_NEIGHBOURS, similarities));
+        transactionTemplate.executeWithoutResult(status -> {
+            replaceNeighbours(recipeId, neighbours);
+            updateReverseNeighbours(recipeId, similarities);
+        });
+    }
+
+    /**
+     * Rebuilds the whole similarity index.
+     * Runs nightly and whenever the index is found empty at startup.
+     * Each recipe's neighbours are written in their own short transaction.
+     */
+    @Scheduled(cron = "0 0 3 * * *")
+    public void rebuildIndex() {
+        for (RecipeFeatures target : List.copyOf(featureStore.all())) {
+            List<RecipeSimilarity> neighbours =
+                    toNeighbours(target.getRecipeId(), TopK.of(MAX_NEIGHBOURS, scoreCandidates(target)));
+            transactionTemplate.executeWithoutResult(status -> replaceNeighbours(target.getRecipeId(), neighbours));
+        }
+    }
+
+    /**
+     * Builds the index in the background if it has never been built.
+     */
+    @Async
+    public void buildIndexIfEmpty() {
+        if (recipeSimilarityRepository.count() == 0) {
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * Calculates similarity between two recipes based on ingredients, category, and cuisine.
+     * Uses Jaccard similarity of the ingredient bitmaps and exact matching of the interned
+     * category and cuisine codes.
+     *
+     * @param recipe1 The features of the first recipe
+     * @param recipe2 The features of the second recipe
+     * @return A similarity score between 0.0 (no similarity) and 1.0 (identical)
+     */
+    public double calculateRecipeSimilarity(RecipeFeatures recipe1, RecipeFeatures recipe2) {
+        double ingredientSimilarity = recipe1.ingredientJaccard(recipe2);
+
+        double categorySimilarity = recipe1.getCategoryCode() != RecipeFeatures.NO_CODE &&
+                recipe1.getCategoryCode() == recipe2.getCategoryCode() ? 1.0 : 0.0;
+
+        double cuisineSimilarity = recipe1.getCuisineCode() != RecipeFeatures.NO_CODE &&
+                recipe1.getCuisineCode() == recipe2.getCuisineCode() ? 1.0 : 0.0;
+
+        // Weighted combination of similarities
+        return ingredientSimilarity * CatalogueColumns.INGREDIENT_SIMILARITY_WEIGHT +
+                categorySimilarity * CatalogueColumns.CATEGORY_SIMILARITY_WEIGHT +
+                cuisineSimilarity * CatalogueColumns.CUISINE_SIMILARITY_WEIGHT;
+    }
+
+    /**
+     * Scores a recipe against every other recipe that can be similar to it.
+     * Only recipes sharing an ingredient, the category or the cuisine with the target can
+     * score above zero, so only those are compared.
+     *
+     * @param target The features of the recipe to score candidates for
+     * @return The candidates with a positive score, keyed by recipe ID
+     */
+    private LongDoubleMap scoreCandidates(RecipeFeatures target) {
+        LongDoubleMap similarities = new LongDoubleMap();
+
+        for (Long candidateId : featureStore.findCandidates(target)) {
+            RecipeFeatures candidate = featureStore.get(candidateId);
+            if (candidate != null && candidate.getRecipeId() != target.getRecipeId()) {
+                double similarity = calculateRecipeSimilarity(target, candidate);
+                if (similarity > 0) {
+                    similarities.put(candidate.getRecipeId(), similarity);
+                }
+            }
+        }
+        return similarities;
+    }
+
+    /**
+     * Converts selected neighbours into index rows.
+     *
+     * @param recipeId The ID of the recipe the neighbours belong to
+     * @param topNeighbours The selected neighbours, best first
+     * @return The index rows, best first
+     */
+    private List<RecipeSimilarity> toNeighbours(long recipeId, TopK topNeighbours) {
+        LocalDateTime now = LocalDateTime.now();
+        List<RecipeSimilarity> neighbours = new ArrayList<>(topNeighbours.size());
+        for (int i = 0; i < topNeighbours.size(); i++) {
+            neighbours.add(RecipeSimilarity.builder()
+                    .recipeId(recipeId)
+                    .similarRecipeId(topNeighbours.id(i))
+                    .score(topNeighbours.score(i))
+                    .computedAt(now)
+                    .build());
+        }
+        return neighbours;
+    }
+
+    /**
+     * Inserts a recipe into the stored neighbour lists of the recipes it is similar to,
+     * wherever its score beats the lowest stored score or the list isn't full yet.
+     * A full list drops its lowest entry to make room.
+     *
+     * @param recipeId The ID of the indexed recipe
+     * @param similarities The similarity of the recipe to each candidate, keyed by recipe ID
+     */
+    private void updateReverseNeighbours(Long recipeId, LongDoubleMap similarities) {
+        recipeSimilarityRepository.deleteBySimilarRecipeId(recipeId);
+
+        List<Long> candidateIds = new ArrayList<>(similarities.size());
+        similarities.forEach((candidateId, similarity) -> candidateIds.add(candidateId));
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < candidateIds.size(); from += REVERSE_LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = candidateIds.subList(from, Math.min(from + REVERSE_LOOKUP_CHUNK_SIZE, candidateIds.size()));
+
+            // Stored list size and lowest score per candidate; candidates without rows are absent
+            Map<Long, Object[]> bounds = new HashMap<>();
+            for (Object[] row : recipeSimilarityRepository.findNeighbourBoundsByRecipeIdIn(chunk)) {
+                bounds.put((Long) row[0], row);
+            }
+
+            for (Long candidateId : chunk) {
+                double similarity = similarities.get(candidateId, 0.0);
+                Object[] bound = bounds.get(candidateId);
+                boolean full = bound != null && ((Number) bound[1]).intValue() >= MAX_NEIGHBOURS;
+                if (full && similarity <= ((Number) bound[2]).doubleValue()) {
+                    continue;
+                }
+
+                if (full) {
+                    List<RecipeSimilarity> stored = recipeSimilarityRepository.findByRecipeIdOrderByScoreDesc(candidateId);
+                    recipeSimilarityRepository.deleteAll(stored.subList(MAX_NEIGHBOURS - 1, stored.size()));
+                }
+                recipeSimilarityRepository.save(RecipeSimilarity.builder()
+                        .recipeId(candidateId)
+                        .similarRecipeId(recipeId)
+                        .score(similarity)
+                        .computedAt(now)
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * Replaces the stored neighbours of a recipe.
+     *
+     * @param recipeId The ID of the recipe
+     * @param neighbours The freshly computed neighbours
+     */
+    private void replaceNeighbours(Long recipeId, List<RecipeSimilarity> neighbours) {
+        recipeSimilarityRepository.deleteByRecipeId(recipeId);
+        recipeSimilarityRepository.saveAll(neighbours);
+    }
+}
@@ -0,0 +1,170 @@
+package com.thesis.receiptify.service;
+
+import com.thesis.receiptify.model.Profile;
+import com.thesis.receiptify.model.UserRecommendation;
+import com.thesis.receiptify.repository.ProfileRepository;
+import com.thesis.receiptify.repository.UserInteractionRepository;
+import com.thesis.receiptify.repository.UserRecommendationRepository;
+import com.thesis.receiptify.service.recommendation.TopK;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service responsible for precomputing recommendations of active users.
+ * Runs the hybrid recommendation pipeline off the request path and stores each user's
+ * top recipes in the user_recommendations table, from which they are served.
+ */
+@Service
+public class RecommendationBatchService {
+
+    /**
+     * Number of recommendations stored per user.
+     */
+    public static final int PRECOMPUTED_RECOMMENDATIONS = 50;
+
+    /**
+     * How long precomputed recommendations are served before falling back to online computation.
+     */
+    public static final Duration MAX_AGE = Duration.ofHours(12);
+
+    /**
+     * Users who interacted with a recipe within this window are considered active.
+     */
+    private static final Duration ACTIVE_WINDOW = Duration.ofDays(30);
+
+    private final ProfileRepository profileRepository;
+    private final UserInteractionRepository interactionRepository;
+    private final UserRecommendationRepository userRecommendationRepository;
+    private final RecommendationService recommendationService;
+    private final Executor batchExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    // Progress of the current or last run
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger totalUsers = new AtomicInteger();
+    private final AtomicInteger processedUsers = new AtomicInteger();
+    private final AtomicInteger failedUsers = new AtomicInteger();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    public RecommendationBatchService(ProfileRepository profileRepository,
+                                      UserInteractionRepository interactionRepository,
+                                      UserRecommendationRepository userRecommendationRepository,
+                                      RecommendationService recommendationService,
+                                      @Qualifier("recommendationBatchExecutor") Executor batchExecutor,
+                                      PlatformTransactionManager transactionManager) {
+        this.profileRepository = profileRepository;
+        this.interactionRepository = interactionRepository;
+        this.userRecommendationRepository = userRecommendationRepository;
+        this.recommendationService = recommendationService;
+        this.batchExecutor = batchExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Precomputes the recommendations of all active users.
+     * Users are processed in parallel on the bounded batch executor, each in its own transaction.
+     * Does nothing if a run is already in progress.
+     */
+    @Scheduled(cron = "0 30 */6 * * *")
+    public void precomputeRecommendations() {
+        if (!running.compareAndSet(false, true)) {
+            return; // A run is already in progress
+        }
+
+        try {
+            startedAt = LocalDateTime.now();
+            finishedAt = null;
+            processedUsers.set(0);
+            failedUsers.set(0);
+
+            List<Long> userIds = interactionRepository.findActiveUserIds(startedAt.minus(ACTIVE_WINDOW));
+            totalUsers.set(userIds.size());
+
+            CompletableFuture<?>[] tasks = userIds.stream()
+                    .map(userId -> CompletableFuture.runAsync(() -> precomputeForUser(userId), batchExecutor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(tasks).join();
+        } catch (Exception e) {
+            System.err.println("Recommendation batch failed: " + e.getMessage());
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Starts a batch run in the background.
+     */
+    @Async
+    public void startPrecomputation() {
+        precomputeRecommendations();
+    }
+
+    /**
+     * Gets the progress of the current or last batch run.
+     *
+     * @return Map containing the run state and user counters
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("totalUsers", totalUsers.get());
+        status.put("processedUsers", processedUsers.get());
+        status.put("failedUsers", failedUsers.get());
+        return status;
+    }
+
+    /**
+     * Computes and stores the recommendations of a single user.
+     *
+     * @param userId The ID of the user
+     */
+    private void precomputeForUser(Long userId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Optional<Profile> user = profileRepository.findById(userId);
+                if (user.isEmpty()) {
+                    return;
+                }
+
+                // Stored results are served for hours, so no stage may be cut off by the online deadline
+                TopK ranked = recommendationService.computeCompleteRecommendationScores(
+                        user.get(), PRECOMPUTED_RECOMMENDATIONS);
+
+                LocalDateTime now = LocalDateTime.now();
+                List<UserRecommendation> recommendations = new ArrayList<>();
+                for (int position = 0; position < ranked.size(); position++) {
+                    recommendations.add(UserRecommendation.builder()
+                            .userId(userId)
+                            .recipeId(ranked.id(position))
+                            .score(ranked.score(position))
+                            .position(position)
+                            .generatedAt(now)
+                            .build());
+                }
+
+                userRecommendationRepository.deleteByUserId(userId);
+                userRecommendationRepository.saveAll(recommendations);
+            });
+            processedUsers.incrementAndGet();
+        } catch (Exception e) {
+            failedUsers.incrementAndGet();
+            System.err.println("Failed to precompute recommendations for user " + userId + ": " + e.getMessage());
+        }
+    }
+}
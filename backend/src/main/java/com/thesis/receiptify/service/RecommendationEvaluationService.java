@@ -0,0 +1,260 @@
+package com.thesis.receiptify.service;
+
+import com.thesis.receiptify.model.Profile;
+import com.thesis.receiptify.model.dto.RecommendationEvaluationDTO;
+import com.thesis.receiptify.repository.ProfileRepository;
+import com.thesis.receiptify.repository.RatingRepository;
+import com.thesis.receiptify.repository.UserInteractionRepository;
+import com.thesis.receiptify.service.recommendation.FactorModel;
+import com.thesis.receiptify.service.recommendation.FactorModelStore;
+import com.thesis.receiptify.service.recommendation.InteractionMatrix;
+import com.thesis.receiptify.service.recommendation.LongHashSet;
+import com.thesis.receiptify.service.recommendation.RecipeFeatureStore;
+import com.thesis.receiptify.service.recommendation.TopK;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Service responsible for offline evaluation of the hybrid recommender.
+ * Takes a snapshot of all user interactions and ratings, splits it in time, rebuilds the
+ * collaborative state (interaction matrix, similar users and factor model) from the earlier part
+ * only, and replays recommendation generation for every user with activity in the later part.
+ * Reports ranking quality next to per-call latency and allocation, so a change to the weights
+ * or scorers shows its effect on both in one run.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecommendationEvaluationService {
+    // Ratings with at least this many stars count as relevant test items
+    private static final int RELEVANT_RATING = 4;
+
+    // Number of user profiles loaded per query
+    private static final int PROFILE_CHUNK_SIZE = 500;
+
+    private final UserInteractionRepository interactionRepository;
+    private final RatingRepository ratingRepository;
+    private final ProfileRepository profileRepository;
+    private final SeasonalityService seasonalityService;
+    private final RecipeFeatureStore featureStore;
+    private final FactorModelStore factorModelStore;
+    private final RecommendationService recommendationService;
+
+    /**
+     * Runs an offline evaluation.
+     * Interactions first made before the cutoff form the training set. Recipes a user first interacted
+     * with at or after the cutoff, or rated with {@value #RELEVANT_RATING} stars or more at or after it,
+     * are that user's relevant test items. Each user with both training history and test items is
+     * scored once on the calling thread, so latency and allocation are attributed to that call alone.
+     * The live recommendation state is not modified.
+     *
+     * @param k The number of recommendations generated per user
+     * @param trainFraction The fraction of events, by time, that goes into the training set
+     * @param maxUsers The maximum number of users to replay, taken in user ID order
+     * @return The quality and performance figures of the run
+     * @throws IllegalArgumentException if a parameter is out of range
+     * @throws IllegalStateException if there is no timestamped activity to split
+     */
+    @Transactional(readOnly = true)
+    public RecommendationEvaluationDTO evaluate(int k, double trainFraction, int maxUsers) {
+        if (k < 1 || maxUsers < 1 || !(trainFraction > 0 && trainFraction < 1)) {
+            throw new IllegalArgumentException("k and maxUsers must be positive and trainFraction between 0 and 1");
+        }
+
+        // (user ID, recipe ID, view count, saved, first interaction)
+        List<Object[]> interactions = interactionRepository.findAllInteractionEvents();
+        // (user ID, recipe ID, stars, created at)
+        List<Object[]> ratings = ratingRepository.findAllRatingEvents();
+
+        LocalDateTime cutoff = findCutoff(interactions, ratings, trainFraction);
+
+        // Split the interactions at the cutoff
+        long[] cellUsers = new long[interactions.size()];
+        long[] cellRecipes = new long[interactions.size()];
+        float[] cellWeights = new float[interactions.size()];
+        int trainCount = 0;
+        Map<Long, List<Object[]>> trainRowsByUser = new HashMap<>();
+        Map<Long, Set<Long>> relevantByUser = new HashMap<>();
+        for (Object[] interaction : interactions) {
+            Long userId = (Long) interaction[0];
+            Long recipeId = (Long) interaction[1];
+            float weight = InteractionMatrix.interactionWeight((Integer) interaction[2], (Boolean) interaction[3]);
+            LocalDateTime time = (LocalDateTime) interaction[4];
+
+            if (time == null || time.isBefore(cutoff)) {
+                cellUsers[trainCount] = userId;
+                cellRecipes[trainCount] = recipeId;
+                cellWeights[trainCount] = weight;
+                trainCount++;
+                trainRowsByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(interaction);
+            } else if (weight > 0) {
+                relevantByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(recipeId);
+            }
+        }
+        for (Object[] rating : ratings) {
+            LocalDateTime time = (LocalDateTime) rating[3];
+            if (time != null && !time.isBefore(cutoff) && (Integer) rating[2] >= RELEVANT_RATING) {
+                relevantByUser.computeIfAbsent((Long) rating[0], id -> new HashSet<>()).add((Long) rating[1]);
+            }
+        }
+
+        // Rebuild the collaborative state from the training set only
+        long[] trainUsers = Arrays.copyOf(cellUsers, trainCount);
+        long[] trainRecipes = Arrays.copyOf(cellRecipes, trainCount);
+        float[] trainWeights = Arrays.copyOf(cellWeights, trainCount);
+        InteractionMatrix matrix = InteractionMatrix.detached();
+        matrix.load(trainUsers, trainRecipes, trainWeights);
+        FactorModel model = factorModelStore.fit(trainUsers, trainRecipes, trainWeights);
+
+        // Stages run on the calling thread without a timeout, so every call is measured in full
+        RecommendationService.ScoringSnapshot snapshot = new RecommendationService.ScoringSnapshot(
+                seasonalityService.getCurrentMonth(), featureStore.columns(), matrix, model, Runnable::run, 0,
+                RecommendationService.NO_STAGE_TIMEOUT);
+
+        // Users with nothing to learn from are served the popularity ranking, not the hybrid pipeline
+        List<Long> userIds = new ArrayList<>();
+        int testInteractions = 0;
+        int skippedUsers = 0;
+        for (Map.Entry<Long, Set<Long>> entry : relevantByUser.entrySet()) {
+            List<Object[]> trainRows = trainRowsByUser.get(entry.getKey());
+            if (trainRows != null) {
+                // Recipes seen before the cutoff are excluded from recommendations, so they can't be hits
+                trainRows.forEach(row -> entry.getValue().remove((Long) row[1]));
+            }
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            testInteractions += entry.getValue().size();
+            if (trainRows == null) {
+                skippedUsers++;
+            } else {
+                userIds.add(entry.getKey());
+            }
+        }
+        Collections.sort(userIds);
+        if (userIds.size() > maxUsers) {
+            skippedUsers += userIds.size() - maxUsers;
+            userIds = userIds.subList(0, maxUsers);
+        }
+
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        long threadId = Thread.currentThread().getId();
+
+        long[] latencies = new long[userIds.size()];
+        long[] allocations = new long[userIds.size()];
+        double precisionSum = 0.0;
+        double recallSum = 0.0;
+        int evaluated = 0;
+
+        for (int from = 0; from < userIds.size(); from += PROFILE_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + PROFILE_CHUNK_SIZE, userIds.size()));
+
+            for (Profile user : profileRepository.findAllById(chunk)) {
+                Long userId = user.getId();
+                List<Object[]> trainRows = trainRowsByUser.get(userId);
+                Set<Long> relevant = relevantByUser.get(userId);
+
+                LongHashSet excludedRecipeIds = new LongHashSet();
+                trainRows.forEach(row -> excludedRecipeIds.add((Long) row[1]));
+                List<Long> favoriteRecipeIds = RecommendationService.mostViewedRecipeIds(trainRows);
+
+                long allocatedBefore = threads != null ? threads.getThreadAllocatedBytes(threadId) : 0;
+                long start = System.nanoTime();
+                TopK recommendations = recommendationService.scoreUser(userId, featureStore.preferencesOf(user),
+                        excludedRecipeIds, favoriteRecipeIds, snapshot, k);
+                latencies[evaluated] = System.nanoTime() - start;
+                allocations[evaluated] = threads != null ? threads.getThreadAllocatedBytes(threadId) - allocatedBefore : 0;
+
+                int hits = 0;
+                for (int i = 0; i < recommendations.size(); i++) {
+                    if (relevant.contains(recommendations.id(i))) {
+                        hits++;
+                    }
+                }
+                precisionSum += (double) hits / k;
+                recallSum += (double) hits / relevant.size();
+                evaluated++;
+            }
+        }
+
+        long[] measuredLatencies = Arrays.copyOf(latencies, evaluated);
+        long[] measuredAllocations = Arrays.copyOf(allocations, evaluated);
+        Arrays.sort(measuredLatencies);
+        Arrays.sort(measuredAllocations);
+
+        return RecommendationEvaluationDTO.builder()
+                .cutoff(cutoff)
+                .k(k)
+                .trainInteractions(trainCount)
+                .testInteractions(testInteractions)
+                .evaluatedUsers(evaluated)
+                .skippedUsers(skippedUsers)
+                .factorModelUsed(model != null)
+                .contentWeight(RecommendationService.CONTENT_WEIGHT)
+                .collaborativeWeight(RecommendationService.COLLABORATIVE_WEIGHT)
+                .preferenceWeight(RecommendationService.PREFERENCE_WEIGHT)
+                .precisionAtK(evaluated > 0 ? precisionSum / evaluated : 0.0)
+                .recallAtK(evaluated > 0 ? recallSum / evaluated : 0.0)
+                .latencyP50Millis(percentile(measuredLatencies, 0.50) / 1_000_000.0)
+                .latencyP99Millis(percentile(measuredLatencies, 0.99) / 1_000_000.0)
+                .meanAllocatedBytes(threads != null ? (long) Arrays.stream(measuredAllocations).average().orElse(0) : null)
+                .p99AllocatedBytes(threads != null ? percentile(measuredAllocations, 0.99) : null)
+                .build();
+    }
+
+    /**
+     * Finds the time splitting the timestamped interactions and ratings at the given fraction.
+     *
+     * @return The earliest time belonging to the test set
+     * @throws IllegalStateException if no event has a timestamp
+     */
+    private static LocalDateTime findCutoff(List<Object[]> interactions, List<Object[]> ratings, double trainFraction) {
+        List<LocalDateTime> times = new ArrayList<>(interactions.size() + ratings.size());
+        for (Object[] interaction : interactions) {
+            if (interaction[4] != null) {
+                times.add((LocalDateTime) interaction[4]);
+            }
+        }
+        for (Object[] rating : ratings) {
+            if (rating[3] != null) {
+                times.add((LocalDateTime) rating[3]);
+            }
+        }
+
+        if (times.isEmpty()) {
+            throw new IllegalStateException("No timestamped interactions or ratings to evaluate against");
+        }
+
+        Collections.sort(times);
+        return times.get(Math.min(times.size() - 1, (int) (times.size() * trainFraction)));
+    }
+
+    /**
+     * @return The JVM's per-thread allocation counter, or null if it isn't available
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) ||
+                !threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return threads;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
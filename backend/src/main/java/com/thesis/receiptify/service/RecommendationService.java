@@ -1,18 +1,46 @@
 package com.thesis.receiptify.service;
 
-import com.thesis.receiptify.model.Ingredient;
 import com.thesis.receiptify.model.Profile;
 import com.thesis.receiptify.model.Recipe;
-import com.thesis.receiptify.model.UserInteraction;
+import com.thesis.receiptify.model.UserRecommendation;
 import com.thesis.receiptify.model.dto.*;
-import com.thesis.receiptify.model.enums.IngredientType;
 import com.thesis.receiptify.repository.*;
+import com.thesis.receiptify.service.recommendation.CatalogueColumns;
+import com.thesis.receiptify.service.recommendation.FactorModel;
+import com.thesis.receiptify.service.recommendation.FactorModelStore;
+import com.thesis.receiptify.service.recommendation.InteractionMatrix;
+import com.thesis.receiptify.service.recommendation.LongDoubleMap;
+import com.thesis.receiptify.service.recommendation.LongHashSet;
+import com.thesis.receiptify.service.recommendation.PopularityRanking;
+import com.thesis.receiptify.service.recommendation.RecipeFeatureStore;
+import com.thesis.receiptify.service.recommendation.RecipeFeatures;
+import com.thesis.receiptify.service.recommendation.RecommendationCacheEvictor;
+import com.thesis.receiptify.service.recommendation.RecommendationSessionStore;
+import com.thesis.receiptify.service.recommendation.TopK;
+import com.thesis.receiptify.service.recommendation.UserMinHashIndex;
+import com.thesis.receiptify.service.recommendation.UserNeighbourStore;
+import com.thesis.receiptify.service.recommendation.UserPreferenceVector;
 import jakarta.persistence.EntityNotFoundException;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.Month;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -27,17 +55,152 @@ public class RecommendationService {
     private final RecipeRepository recipeRepository;
     private final ProfileRepository profileRepository;
     private final SeasonalityService seasonalityService;
-    private final RatingRepository ratingRepository;
-    private final CommentRepository commentRepository;
+    private final RatingService ratingService;
+    private final InteractionMatrix interactionMatrix;
+    private final TrendingService trendingService;
+    private final PopularityRanking popularityRanking;
+    private final FactorModelStore factorModelStore;
+    private final RecipeSimilarityRepository recipeSimilarityRepository;
+    private final RecipeFeatureStore featureStore;
+    private final UserRecommendationRepository userRecommendationRepository;
+    private final RecipeSeasonalScoreRepository seasonalScoreRepository;
+    private final RecommendationSessionStore recommendationSessionStore;
+    private final ExecutorService recommendationScoringExecutor;
 
     // Recommendation weights
-    private static final double CONTENT_WEIGHT = 0.4;
-    private static final double COLLABORATIVE_WEIGHT = 0.3;
-    private static final double PREFERENCE_WEIGHT = 0.3;
+    static final double CONTENT_WEIGHT = 0.4;
+    static final double COLLABORATIVE_WEIGHT = 0.3;
+    static final double PREFERENCE_WEIGHT = 0.3;
+
+    // Maximum time a single scoring stage may take before it is left out
+    private static final long STAGE_TIMEOUT_MILLIS = 500;
+
+    // Stage timeout of snapshots whose stages are always waited for
+    static final long NO_STAGE_TIMEOUT = 0;
+
+    // Number of users whose profiles and interactions are loaded together in a batch
+    private static final int BATCH_CHUNK_SIZE = 200;
+
+    // Number of similar users whose recipes are scored when the factor model doesn't know the user
+    private static final int SIMILAR_USERS = 10;
+
+    // Number of most viewed recipes used as seeds for content-based scores
+    static final int FAVORITE_RECIPES = 5;
+
+    // Maximum number of seed recipes whose content neighbours are kept during a batch
+    private static final int MAX_SHARED_SEEDS = 1000;
+
+    /**
+     * Maximum number of recommendations a client may request at once.
+     */
+    public static final int MAX_RECOMMENDATIONS = 100;
+
+    // Number of recipes ranked once for all pages of a paged recommendation session
+    private static final int MAX_PAGED_RECOMMENDATIONS = MAX_RECOMMENDATIONS;
 
     /**
      * Gets personalized recipe recommendations for a specific user.
-     * Uses a hybrid approach combining content-based, collaborative, and preference-based recommendations.
+     * Users without any interactions are served the precomputed {@link PopularityRanking}. Otherwise
+     * recommendations are served from the ones precomputed by {@link RecommendationBatchService} when the
+     * user has a fresh set, or computed online with the hybrid content-based, collaborative,
+     * and preference-based approach. Results are cached per user until their inputs change, unless
+     * a scoring stage timed out, so a degraded result is only served once.
+     *
+     * @param username The username of the user
+     * @param limit The maximum number of recommendations to return
+     * @param includePrevious Whether to include recipes the user has already interacted with
+     * @return The recommended recipes
+     * @throws EntityNotFoundException if the user doesn't exist
+     */
+    @Cacheable(cacheNames = RecommendationCacheEvictor.CACHE_NAME, key = "{#username, #limit, #includePrevious}",
+            unless = "#result.degraded")
+    @Transactional(readOnly = true)
+    public Recommendations getRecommendationsForUser(String username, int limit, boolean includePrevious) {
+        Profile user = profileRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        ScoringSnapshot snapshot = liveSnapshot(0, STAGE_TIMEOUT_MILLIS);
+        List<Long> topRecipeIds = rankRecipeIds(user, limit, includePrevious, snapshot);
+
+        // Convert to DTOs
+        return new Recommendations(convertToDTOs(findRecipesInOrder(topRecipeIds)), snapshot.isDegraded());
+    }
+
+    /**
+     * Gets one page of a user's recommendations.
+     * The first page ranks up to {@link #MAX_PAGED_RECOMMENDATIONS} recipes once and stores the
+     * ranking in the {@link RecommendationSessionStore}; later pages are sliced from that ranking
+     * through the cursor returned with the previous page, so no scores are recomputed.
+     *
+     * @param username The username of the user
+     * @param cursor The cursor of the page, or null for the first page
+     * @param size The maximum number of recommendations on the page
+     * @param includePrevious Whether to include recipes the user has already interacted with
+     * @return The page, with the cursor of the next page if there is one
+     * @throws EntityNotFoundException if the user doesn't exist
+     * @throws IllegalArgumentException if the cursor is invalid or has expired
+     */
+    @Transactional(readOnly = true)
+    public RecommendationPageDTO getRecommendationPage(String username, String cursor, int size,
+                                                       boolean includePrevious) {
+        RecommendationSessionStore.Cursor position;
+        if (cursor == null) {
+            Profile user = profileRepository.findByUsername(username)
+                    .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+            List<Long> rankedRecipeIds = rankRecipeIds(user, MAX_PAGED_RECOMMENDATIONS, includePrevious,
+                    liveSnapshot(0, STAGE_TIMEOUT_MILLIS));
+            position = recommendationSessionStore.store(username, includePrevious, rankedRecipeIds);
+        } else {
+            position = recommendationSessionStore.resolve(cursor, username, includePrevious);
+        }
+
+        RecommendationSessionStore.RankedList ranking = position.getRanking();
+        int end = Math.min(position.getOffset() + Math.max(1, size), ranking.size());
+        List<RecipeDTO> recipes = convertToDTOs(findRecipesInOrder(ranking.slice(position.getOffset(), end)));
+
+        return RecommendationPageDTO.builder()
+                .recipes(recipes)
+                .nextCursor(end < ranking.size() ? recommendationSessionStore.cursor(position.getSessionId(), end) : null)
+                .build();
+    }
+
+    /**
+     * Ranks the recipes to recommend to a user.
+     *
+     * @param user The user profile
+     * @param limit The maximum number of recipes to rank
+     * @param includePrevious Whether to include recipes the user has already interacted with
+     * @param snapshot The catalogue snapshot to score against when the hybrid pipeline runs
+     * @return The recommended recipe IDs, best first
+     */
+    private List<Long> rankRecipeIds(Profile user, int limit, boolean includePrevious, ScoringSnapshot snapshot) {
+        List<Long> topRecipeIds;
+        if (interactionMatrix.findUser(user.getId()) < 0) {
+            // Cold start: without interactions the hybrid pipeline has little to go on
+            topRecipeIds = toIdList(popularityRanking.rank(featureStore.preferencesOf(user), limit));
+        } else {
+            // The batch job only precomputes recommendations without previously seen recipes
+            topRecipeIds = includePrevious ? null : findPrecomputedRecommendations(user, limit);
+
+            if (topRecipeIds == null) {
+                topRecipeIds = toIdList(computeRecommendationScores(user, limit, includePrevious, snapshot));
+            }
+        }
+
+        // Nothing to personalize from yet, fall back to what is trending
+        if (topRecipeIds.isEmpty()) {
+            topRecipeIds = trendingService.getTrendingRecipeIds(null, null, limit);
+        }
+
+        return topRecipeIds;
+    }
+
+    /**
+     * Gets recommendations for a user without running the hybrid pipeline, for when the full
+     * result can't be delivered in time. Uses, in order of preference, the popularity ranking for
+     * users without interactions, the user's precomputed recommendations, scores from the
+     * preference-based scorer alone, and finally the trending recipes.
      *
      * @param username The username of the user
      * @param limit The maximum number of recommendations to return
@@ -46,64 +209,284 @@ public class RecommendationService {
      * @throws EntityNotFoundException if the user doesn't exist
      */
     @Transactional(readOnly = true)
-    public List<RecipeDTO> getRecommendationsForUser(String username, int limit, boolean includePrevious) {
+    public List<RecipeDTO> getFallbackRecommendationsForUser(String username, int limit, boolean includePrevious) {
         Profile user = profileRepository.findByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        UserPreferenceVector preferences = featureStore.preferencesOf(user);
+
+        List<Long> topRecipeIds;
+        if (interactionMatrix.findUser(user.getId()) < 0) {
+            topRecipeIds = toIdList(popularityRanking.rank(preferences, limit));
+        } else {
+            topRecipeIds = includePrevious ? null : findPrecomputedRecommendations(user, limit);
+
+            if (topRecipeIds == null) {
+                // The preference scorer only reads in-memory features, so it is cheap enough here
+                LongHashSet excludedRecipeIds = includePrevious ? new LongHashSet() :
+                        new LongHashSet(interactionRepository.findRecipeIdsByUserId(user.getId()));
+                LongDoubleMap scores = getPreferenceBasedScores(preferences, seasonalityService.getCurrentMonth(),
+                        featureStore.columns(), excludedRecipeIds);
+                topRecipeIds = toIdList(TopK.of(limit, scores));
+            }
+        }
 
-        // Get user's interactions
-        List<UserInteraction> interactions = interactionRepository.findByUser(user);
-        Set<Long> interactedRecipeIds = interactions.stream()
-                .map(i -> i.getRecipe().getId())
-                .collect(Collectors.toSet());
+        if (topRecipeIds.isEmpty()) {
+            topRecipeIds = trendingService.getTrendingRecipeIds(null, null, limit);
+        }
 
-        // Get recommendations by each method
-        Map<Long, Double> contentScores = getContentBasedScores(user, includePrevious ? new HashSet<>() : interactedRecipeIds);
-        Map<Long, Double> collaborativeScores = getCollaborativeScores(user, includePrevious ? new HashSet<>() : interactedRecipeIds);
-        Map<Long, Double> preferenceScores = getPreferenceBasedScores(user, includePrevious ? new HashSet<>() : interactedRecipeIds);
+        return convertToDTOs(findRecipesInOrder(topRecipeIds));
+    }
 
-        // Combine all recommendation scores with weights
-        Map<Long, Double> combinedScores = new HashMap<>();
+    /**
+     * Runs the hybrid recommendation pipeline for a user.
+     * Everything read from the database is loaded up front on the calling thread; the content-based,
+     * collaborative, and preference-based scorers then run concurrently on the scoring executor against
+     * in-memory state. A scorer that fails or exceeds the snapshot's stage timeout contributes no scores,
+     * so the result degrades to the remaining stages instead of blocking; timeouts mark the snapshot as degraded.
+     * Must be called inside a transaction.
+     *
+     * @param user The user profile
+     * @param limit The maximum number of recommendations to return
+     * @param includePrevious Whether to include recipes the user has already interacted with
+     * @param snapshot The catalogue snapshot to score against
+     * @return The top recipe IDs with their combined scores, best first
+     */
+    private TopK computeRecommendationScores(Profile user, int limit, boolean includePrevious,
+                                             ScoringSnapshot snapshot) {
+        // Load the shared inputs once, before fanning out
+        Long userId = user.getId();
+        LongHashSet excludedRecipeIds = includePrevious ? new LongHashSet() :
+                new LongHashSet(interactionRepository.findRecipeIdsByUserId(userId));
+        List<Long> favoriteRecipeIds = interactionRepository.findRecipeIdsByUserIdOrderByViewCountDesc(
+                userId, PageRequest.of(0, FAVORITE_RECIPES));
+
+        return scoreUser(userId, featureStore.preferencesOf(user), excludedRecipeIds, favoriteRecipeIds,
+                snapshot, limit);
+    }
+
+    /**
+     * Runs the hybrid recommendation pipeline for a user without a stage deadline, for results that are
+     * stored and served for hours. Every stage is waited for, so a slow stage delays the result instead of
+     * being left out of it; a failing stage still contributes no scores.
+     * Previously interacted recipes are always excluded. Must be called inside a transaction.
+     *
+     * @param user The user profile
+     * @param limit The maximum number of recommendations to return
+     * @return The top recipe IDs with their combined scores, best first
+     */
+    public TopK computeCompleteRecommendationScores(Profile user, int limit) {
+        return computeRecommendationScores(user, limit, false, liveSnapshot(0, NO_STAGE_TIMEOUT));
+    }
 
-        Set<Long> allRecipeIds = new HashSet<>();
-        allRecipeIds.addAll(contentScores.keySet());
-        allRecipeIds.addAll(collaborativeScores.keySet());
-        allRecipeIds.addAll(preferenceScores.keySet());
+    /**
+     * Computes recommendations for many users in one pass and hands each result to a consumer
+     * as soon as it is ready. Profiles and interactions are loaded in chunks with one query each,
+     * and the catalogue snapshot and the content neighbours of seed recipes are shared by all
+     * users of the batch, so the cost is far below one {@link #getRecommendationsForUser} call per user.
+     * Previously interacted recipes are always excluded. Like the precompute batch, the digest waits
+     * for every scoring stage instead of applying the online deadline.
+     *
+     * @param usernames The usernames of the users
+     * @param limit The maximum number of recommendations per user
+     * @param consumer Receives the result of each user, in the order of the usernames
+     */
+    @Transactional(readOnly = true)
+    public void computeRecommendationsForUsers(List<String> usernames, int limit,
+                                               Consumer<UserRecommendationsDTO> consumer) {
+        ScoringSnapshot snapshot = liveSnapshot(MAX_SHARED_SEEDS, NO_STAGE_TIMEOUT);
 
-        for (Long recipeId : allRecipeIds) {
-            double combinedScore =
-                    (contentScores.getOrDefault(recipeId, 0.0) * CONTENT_WEIGHT) +
-                            (collaborativeScores.getOrDefault(recipeId, 0.0) * COLLABORATIVE_WEIGHT) +
-                            (preferenceScores.getOrDefault(recipeId, 0.0) * PREFERENCE_WEIGHT);
+        for (int from = 0; from < usernames.size(); from += BATCH_CHUNK_SIZE) {
+            List<String> chunk = usernames.subList(from, Math.min(from + BATCH_CHUNK_SIZE, usernames.size()));
+
+            Map<String, Profile> users = new HashMap<>();
+            for (Profile user : profileRepository.findByUsernameIn(chunk)) {
+                users.put(user.getUsername(), user);
+            }
+
+            // Group the interactions of the whole chunk by user
+            Map<Long, List<Object[]>> interactionsByUser = new HashMap<>();
+            List<Long> userIds = users.values().stream().map(Profile::getId).collect(Collectors.toList());
+            if (!userIds.isEmpty()) {
+                for (Object[] row : interactionRepository.findRecipeViewsByUserIdIn(userIds)) {
+                    interactionsByUser.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(row);
+                }
+            }
+
+            for (String username : chunk) {
+                Profile user = users.get(username);
+                if (user == null) {
+                    consumer.accept(UserRecommendationsDTO.builder()
+                            .username(username)
+                            .error("User not found")
+                            .build());
+                    continue;
+                }
 
-            combinedScores.put(recipeId, combinedScore);
+                List<Object[]> interactions = interactionsByUser.getOrDefault(user.getId(), List.of());
+                UserPreferenceVector preferences = featureStore.preferencesOf(user);
+
+                TopK ranked;
+                if (interactions.isEmpty()) {
+                    ranked = popularityRanking.rank(preferences, limit);
+                } else {
+                    LongHashSet excludedRecipeIds = new LongHashSet();
+                    for (Object[] interaction : interactions) {
+                        excludedRecipeIds.add((Long) interaction[1]);
+                    }
+                    ranked = scoreUser(user.getId(), preferences, excludedRecipeIds,
+                            mostViewedRecipeIds(interactions), snapshot, limit);
+                }
+
+                List<Long> recipeIds = new ArrayList<>(ranked.size());
+                List<Double> scores = new ArrayList<>(ranked.size());
+                for (int i = 0; i < ranked.size(); i++) {
+                    recipeIds.add(ranked.id(i));
+                    scores.add(ranked.score(i));
+                }
+                consumer.accept(UserRecommendationsDTO.builder()
+                        .username(username)
+                        .recipeIds(recipeIds)
+                        .scores(scores)
+                        .build());
+            }
         }
+    }
+
+    /**
+     * Runs the content-based, collaborative, and preference-based scorers concurrently and combines them.
+     *
+     * @param userId The ID of the user
+     * @param preferences The user's preference vector
+     * @param excludedRecipeIds Recipes to leave out of the results
+     * @param favoriteRecipeIds IDs of the recipes the user viewed most, most viewed first
+     * @param snapshot The catalogue snapshot to score against
+     * @param limit The maximum number of recommendations to return
+     * @return The top recipe IDs with their combined scores, best first
+     */
+    TopK scoreUser(Long userId, UserPreferenceVector preferences, LongHashSet excludedRecipeIds,
+                   List<Long> favoriteRecipeIds, ScoringSnapshot snapshot, int limit) {
+        // Get recommendations by each method
+        CompletableFuture<LongDoubleMap> contentStage = runStage("content", snapshot,
+                () -> getContentBasedScores(favoriteRecipeIds, excludedRecipeIds, snapshot));
+        CompletableFuture<LongDoubleMap> collaborativeStage = runStage("collaborative", snapshot,
+                () -> getCollaborativeScores(userId, excludedRecipeIds, snapshot));
+        CompletableFuture<LongDoubleMap> preferenceStage = runStage("preference", snapshot,
+                () -> getPreferenceBasedScores(preferences, snapshot.month, snapshot.columns, excludedRecipeIds));
+
+        LongDoubleMap contentScores = contentStage.join();
+        LongDoubleMap collaborativeScores = collaborativeStage.join();
+        LongDoubleMap preferenceScores = preferenceStage.join();
+
+        // Combine all recommendation scores with weights
+        LongDoubleMap combinedScores = new LongDoubleMap(preferenceScores.size() + contentScores.size());
+        contentScores.forEach((recipeId, score) -> combinedScores.add(recipeId, score * CONTENT_WEIGHT));
+        collaborativeScores.forEach((recipeId, score) -> combinedScores.add(recipeId, score * COLLABORATIVE_WEIGHT));
+        preferenceScores.forEach((recipeId, score) -> combinedScores.add(recipeId, score * PREFERENCE_WEIGHT));
 
         // Get top recipes by score
-        List<Long> topRecipeIds = combinedScores.entrySet().stream()
-                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        return TopK.of(limit, combinedScores);
+    }
 
-        List<Recipe> recommendedRecipes = recipeRepository.findAllById(topRecipeIds);
+    /**
+     * Creates a scoring snapshot of the live recommendation state.
+     *
+     * @param maxSharedSeeds The maximum number of seed recipes whose content neighbours are shared
+     * @param stageTimeoutMillis The maximum time a stage may take, or {@link #NO_STAGE_TIMEOUT}
+     * @return The snapshot, running its stages on the scoring executor
+     */
+    private ScoringSnapshot liveSnapshot(int maxSharedSeeds, long stageTimeoutMillis) {
+        return new ScoringSnapshot(seasonalityService.getCurrentMonth(), featureStore.columns(),
+                interactionMatrix, factorModelStore.current(), recommendationScoringExecutor, maxSharedSeeds,
+                stageTimeoutMillis);
+    }
 
-        // Sort by score
-        Map<Long, Integer> recipeIdToPosition = new HashMap<>();
-        for (int i = 0; i < topRecipeIds.size(); i++) {
-            recipeIdToPosition.put(topRecipeIds.get(i), i);
+    /**
+     * Picks a user's most viewed recipes out of their (user ID, recipe ID, view count) rows.
+     */
+    static List<Long> mostViewedRecipeIds(List<Object[]> interactions) {
+        TopK mostViewed = new TopK(FAVORITE_RECIPES);
+        for (Object[] interaction : interactions) {
+            Integer viewCount = (Integer) interaction[2];
+            mostViewed.offer((Long) interaction[1], viewCount != null ? viewCount : 0);
         }
+        return toIdList(mostViewed.sort());
+    }
 
-        recommendedRecipes.sort(Comparator.comparingInt(r ->
-                recipeIdToPosition.getOrDefault(r.getId(), Integer.MAX_VALUE)));
+    /**
+     * Runs a scoring stage on an executor.
+     *
+     * @param stage The name of the stage, used for logging
+     * @param snapshot The snapshot whose executor and stage timeout are used
+     * @param scorer The scorer to run
+     * @return The stage's scores, or an empty map if the stage fails or times out. A timed out stage
+     *         is cancelled if it hasn't started yet, and marks the snapshot as degraded
+     */
+    private CompletableFuture<LongDoubleMap> runStage(String stage, ScoringSnapshot snapshot,
+                                                      Supplier<LongDoubleMap> scorer) {
+        CompletableFuture<LongDoubleMap> future;
+        try {
+            future = CompletableFuture.supplyAsync(scorer, snapshot.stageExecutor);
+        } catch (RejectedExecutionException e) {
+            // Scoring executor saturated, run the stage on the calling thread
+            future = CompletableFuture.supplyAsync(scorer, Runnable::run);
+        }
 
-        // Convert to DTOs
-        return recommendedRecipes.stream()
-                .map(this::convertToDTO)
+        CompletableFuture<LongDoubleMap> scoring = future;
+        CompletableFuture<LongDoubleMap> result = scoring.exceptionally(e -> {
+            System.err.println("Recommendation stage '" + stage + "' failed: " + e.getMessage());
+            return new LongDoubleMap();
+        });
+        if (snapshot.stageTimeoutMillis == NO_STAGE_TIMEOUT) {
+            return result;
+        }
+
+        return result.completeOnTimeout(null, snapshot.stageTimeoutMillis, TimeUnit.MILLISECONDS)
+                .thenApply(scores -> {
+                    if (scores != null) {
+                        return scores;
+                    }
+                    // Free the executor slot if the stage is still queued; a running stage finishes unseen
+                    scoring.cancel(false);
+                    snapshot.markDegraded();
+                    System.err.println("Recommendation stage '" + stage + "' timed out after "
+                            + snapshot.stageTimeoutMillis + " ms");
+                    return new LongDoubleMap();
+                });
+    }
+
+    /**
+     * Looks up the precomputed recommendations of a user.
+     * Recipes the user has interacted with since the batch ran are filtered out.
+     *
+     * @param user The user profile
+     * @param limit The maximum number of recommendations to return
+     * @return The recommended recipe IDs in order, or null if there is no usable precomputed set
+     */
+    private List<Long> findPrecomputedRecommendations(Profile user, int limit) {
+        LocalDateTime freshAfter = LocalDateTime.now().minus(RecommendationBatchService.MAX_AGE);
+        List<UserRecommendation> precomputed = userRecommendationRepository.findFreshByUserId(user.getId(), freshAfter);
+        if (precomputed.isEmpty()) {
+            return null;
+        }
+
+        Set<Long> interactedRecipeIds = new HashSet<>(interactionRepository.findRecipeIdsByUserId(user.getId()));
+        List<Long> recipeIds = precomputed.stream()
+                .map(UserRecommendation::getRecipeId)
+                .filter(recipeId -> !interactedRecipeIds.contains(recipeId))
+                .limit(limit)
                 .collect(Collectors.toList());
+
+        // Too few left, and the batch may have cut off further candidates
+        if (recipeIds.size() < limit && precomputed.size() >= RecommendationBatchService.PRECOMPUTED_RECOMMENDATIONS) {
+            return null;
+        }
+
+        return recipeIds;
     }
 
     /**
      * Finds recipes similar to the specified recipe based on ingredients, category, and cuisine.
+     * Reads the precomputed neighbours from the similarity index maintained by {@link RecipeSimilarityService}.
      *
      * @param recipeId The ID of the recipe to find similar recipes for
      * @param limit The maximum number of similar recipes to return
@@ -112,39 +495,32 @@ public class RecommendationService {
      */
     @Transactional(readOnly = true)
     public List<RecipeDTO> getSimilarRecipes(Long recipeId, int limit) {
-        Recipe targetRecipe = recipeRepository.findById(recipeId)
-                .orElseThrow(() -> new EntityNotFoundException("Recipe not found"));
-
-        List<Recipe> allRecipes = recipeRepository.findAll();
-        Map<Long, Double> similarityScores = new HashMap<>();
-
-        for (Recipe recipe : allRecipes) {
-            if (!recipe.getId().equals(recipeId)) {
-                double similarity = calculateRecipeSimilarity(targetRecipe, recipe);
-                similarityScores.put(recipe.getId(), similarity);
-            }
+        if (!recipeRepository.existsById(recipeId)) {
+            throw new EntityNotFoundException("Recipe not found");
         }
 
-        List<Long> similarRecipeIds = similarityScores.entrySet().stream()
-                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        Pageable neighbours = PageRequest.of(0, Math.max(1, Math.min(limit, RecipeSimilarityService.MAX_NEIGHBOURS)));
 
-        List<Recipe> similarRecipes = recipeRepository.findAllById(similarRecipeIds);
+        // Served from the precomputed similarity index, ordered by similarity score. A recipe is
+        // indexed after every create and update, so an empty result is never recomputed on read.
+        List<Recipe> similarRecipes = recipeSimilarityRepository.findSimilarRecipes(recipeId, neighbours);
 
-        // Sort by similarity score
-        Map<Long, Integer> idToPosition = new HashMap<>();
-        for (int i = 0; i < similarRecipeIds.size(); i++) {
-            idToPosition.put(similarRecipeIds.get(i), i);
-        }
+        return convertToDTOs(similarRecipes);
+    }
 
-        similarRecipes.sort(Comparator.comparingInt(r ->
-                idToPosition.getOrDefault(r.getId(), Integer.MAX_VALUE)));
+    /**
+     * Gets the currently trending recipes, optionally narrowed to a category and/or cuisine.
+     *
+     * @param category The category to filter by, or null for all categories
+     * @param cuisine The cuisine to filter by, or null for all cuisines
+     * @param limit The maximum number of recipes to return
+     * @return List of trending recipes, most trending first
+     */
+    @Transactional(readOnly = true)
+    public List<RecipeDTO> getTrendingRecipes(String category, String cuisine, int limit) {
+        List<Long> trendingRecipeIds = trendingService.getTrendingRecipeIds(category, cuisine, limit);
 
-        return similarRecipes.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(findRecipesInOrder(trendingRecipeIds));
     }
 
     /**
@@ -155,312 +531,253 @@ public class RecommendationService {
      */
     @Transactional(readOnly = true)
     public List<RecipeDTO> getSeasonalRecommendations(int limit) {
-        List<Recipe> allRecipes = recipeRepository.findAll();
-        Map<Recipe, Integer> recipeSeasonalScores = new HashMap<>();
+        // Indexed top-N over the monthly scores stored with each recipe
+        List<Long> seasonalRecipeIds = seasonalScoreRepository.findTopRecipeIdsByMonth(
+                seasonalityService.getCurrentMonth(), PageRequest.of(0, limit));
+
+        return convertToDTOs(findRecipesInOrder(seasonalRecipeIds));
+    }
 
-        for (Recipe recipe : allRecipes) {
-            RecipeSeasonalityDTO seasonality = seasonalityService.analyzeRecipeSeasonality(recipe);
-            recipeSeasonalScores.put(recipe, seasonality.getSeasonalScore());
+    /**
+     * Loads recipes by ID, keeping the order of the IDs.
+     * IDs of recipes that no longer exist are skipped.
+     *
+     * @param recipeIds The recipe IDs in the desired order
+     * @return The recipes in the order of their IDs
+     */
+    private List<Recipe> findRecipesInOrder(List<Long> recipeIds) {
+        List<Recipe> recipes = recipeRepository.findAllById(recipeIds);
+
+        Map<Long, Integer> recipeIdToPosition = new HashMap<>();
+        for (int i = 0; i < recipeIds.size(); i++) {
+            recipeIdToPosition.put(recipeIds.get(i), i);
         }
 
-        return recipeSeasonalScores.entrySet().stream()
-                .sorted(Map.Entry.<Recipe, Integer>comparingByValue().reversed())
-                .limit(limit)
-                .map(entry -> convertToDTO(entry.getKey()))
-                .collect(Collectors.toList());
+        recipes.sort(Comparator.comparingInt(r ->
+                recipeIdToPosition.getOrDefault(r.getId(), Integer.MAX_VALUE)));
+        return recipes;
+    }
+
+    /**
+     * @param ranking A sorted top-K selection
+     * @return The selected IDs, best first
+     */
+    private static List<Long> toIdList(TopK ranking) {
+        List<Long> ids = new ArrayList<>(ranking.size());
+        for (int i = 0; i < ranking.size(); i++) {
+            ids.add(ranking.id(i));
+        }
+        return ids;
     }
 
     /**
      * Generates content-based recommendation scores based on user's interaction history.
      * Finds recipes similar to those the user has interacted with frequently.
      *
-     * @param user The user profile
+     * @param favoriteRecipeIds IDs of the recipes the user viewed most, most viewed first
      * @param interactedRecipeIds Set of recipe IDs the user has already interacted with
+     * @param snapshot The scoring snapshot, which may share seed neighbours across users
      * @return Map of recipe IDs to recommendation scores
      */
-    private Map<Long, Double> getContentBasedScores(Profile user, Set<Long> interactedRecipeIds) {
-        Map<Long, Double> scores = new HashMap<>();
+    private LongDoubleMap getContentBasedScores(List<Long> favoriteRecipeIds, LongHashSet interactedRecipeIds,
+                                                ScoringSnapshot snapshot) {
+        LongDoubleMap scores = new LongDoubleMap();
 
         if (interactedRecipeIds.isEmpty()) {
             return scores; // No previous interactions
         }
 
-        // Get user's favorite recipes (high view count or rated highly)
-        List<UserInteraction> favoriteInteractions = interactionRepository.findByUserOrderByViewCountDesc(user);
-
-        // Only consider top interactions
-        List<UserInteraction> topInteractions = favoriteInteractions.stream()
-                .limit(5)
-                .collect(Collectors.toList());
-
-        // Collect all recipes
-        List<Recipe> allRecipes = recipeRepository.findAll();
+        // For each of user's favorite recipes, take the similar ones the user hasn't interacted with
+        for (Long favoriteRecipeId : favoriteRecipeIds) {
+            LongDoubleMap neighbours = snapshot.neighboursOf(favoriteRecipeId,
+                    seedRecipeId -> findContentNeighbours(seedRecipeId, snapshot.columns));
 
-        // For each of user's favorite recipes, find similar ones
-        for (UserInteraction interaction : topInteractions) {
-            Recipe favoriteRecipe = interaction.getRecipe();
-
-            for (Recipe candidate : allRecipes) {
-                // Skip recipes the user has already interacted with
-                if (interactedRecipeIds.contains(candidate.getId())) {
-                    continue;
+            // Add to scores, accounting for multiple similar recipes
+            neighbours.forEach((candidateId, similarity) -> {
+                if (!interactedRecipeIds.contains(candidateId)) {
+                    scores.putMax(candidateId, similarity);
                 }
-
-                double similarity = calculateRecipeSimilarity(favoriteRecipe, candidate);
-
-                // Add to scores, accounting for multiple similar recipes
-                scores.put(candidate.getId(),
-                        Math.max(similarity, scores.getOrDefault(candidate.getId(), 0.0)));
-            }
+            });
         }
 
         return scores;
     }
 
     /**
-     * Generates collaborative filtering recommendation scores based on similar users.
-     * Finds users with similar tastes and recommends recipes they've interacted with.
+     * Scores the recipes of the catalogue sharing an ingredient, the category or the cuisine with a seed recipe.
      *
-     * @param user The user profile
-     * @param interactedRecipeIds Set of recipe IDs the user has already interacted with
-     * @return Map of recipe IDs to recommendation scores
+     * @param seedRecipeId The ID of the seed recipe
+     * @param columns The catalogue to score
+     * @return Map of recipe IDs to similarity scores above zero, empty if the seed isn't in the feature store
      */
-    private Map<Long, Double> getCollaborativeScores(Profile user, Set<Long> interactedRecipeIds) {
-        Map<Long, Double> scores = new HashMap<>();
-
-        // Get all users
-        List<Profile> allUsers = profileRepository.findAll();
+    private LongDoubleMap findContentNeighbours(Long seedRecipeId, CatalogueColumns columns) {
+        LongDoubleMap neighbours = new LongDoubleMap();
 
-        // Get user's interactions
-        List<UserInteraction> userInteractions = interactionRepository.findByUser(user);
-
-        // Build similarity scores between users
-        Map<Profile, Double> userSimilarities = new HashMap<>();
-
-        for (Profile otherUser : allUsers) {
-            if (otherUser.getId().equals(user.getId())) {
-                continue; // Skip the current user
-            }
-
-            List<UserInteraction> otherUserInteractions = interactionRepository.findByUser(otherUser);
+        RecipeFeatures seed = featureStore.get(seedRecipeId);
+        if (seed == null) {
+            return neighbours;
+        }
 
-            // Calculate similarity between users
-            double similarity = calculateUserSimilarity(userInteractions, otherUserInteractions);
+        columns.similarityScores(seed, neighbours);
+        return neighbours;
+    }
 
-            if (similarity > 0) {
-                userSimilarities.put(otherUser, similarity);
-            }
+    /**
+     * Generates collaborative filtering recommendation scores.
+     * Uses the latent factor model when it knows the user; otherwise finds users with similar
+     * tastes and recommends recipes they've interacted with. Similar users are taken from the
+     * incrementally maintained {@link UserNeighbourStore} and the {@link UserMinHashIndex} buckets,
+     * so only a bounded set of candidates is compared per request.
+     *
+     * @param userId The ID of the user
+     * @param interactedRecipeIds Set of recipe IDs the user has already interacted with
+     * @param snapshot The scoring snapshot holding the interaction matrix and factor model
+     * @return Map of recipe IDs to recommendation scores
+     */
+    private LongDoubleMap getCollaborativeScores(Long userId, LongHashSet interactedRecipeIds,
+                                                 ScoringSnapshot snapshot) {
+        // Prefer the factor model; users who weren't in its training data fall back to similar users
+        FactorModel model = snapshot.model;
+        int userRow = model != null ? model.findUser(userId) : -1;
+        if (userRow >= 0) {
+            return getFactorModelScores(model, userRow, interactedRecipeIds);
         }
 
-        // Get top similar users
-        List<Profile> similarUsers = userSimilarities.entrySet().stream()
-                .sorted(Map.Entry.<Profile, Double>comparingByValue().reversed())
-                .limit(10)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        LongDoubleMap scores = new LongDoubleMap();
 
-        // For each similar user, consider their favorite recipes
-        for (Profile similarUser : similarUsers) {
-            double userSimilarity = userSimilarities.get(similarUser);
+        InteractionMatrix matrix = snapshot.matrix;
+        int userOrdinal = matrix.findUser(userId);
+        if (userOrdinal < 0) {
+            return scores; // No interactions to compare against
+        }
 
-            List<UserInteraction> similarUserInteractions =
-                    interactionRepository.findByUserOrderByViewCountDesc(similarUser);
+        // Candidates are the incrementally maintained neighbours plus the LSH bucket mates, which cover
+        // users the neighbour store doesn't pair; all are verified with exact Jaccard similarity
+        TopK similarUsers = new TopK(SIMILAR_USERS);
+        LongHashSet verifiedUsers = new LongHashSet();
+        TopK storedNeighbours = matrix.neighbourStore().findNeighbours(userOrdinal, SIMILAR_USERS);
+        for (int i = 0; i < storedNeighbours.size(); i++) {
+            offerSimilarUser(matrix, userOrdinal, (int) storedNeighbours.id(i), verifiedUsers, similarUsers);
+        }
+        for (int otherUser : matrix.minHashIndex().findCandidates(userOrdinal)) {
+            offerSimilarUser(matrix, userOrdinal, otherUser, verifiedUsers, similarUsers);
+        }
+        similarUsers.sort();
 
-            for (UserInteraction interaction : similarUserInteractions) {
-                Long recipeId = interaction.getRecipe().getId();
+        // For each similar user, consider the recipes they've interacted with
+        for (int i = 0; i < similarUsers.size(); i++) {
+            int similarUser = (int) similarUsers.id(i);
+            double userSimilarity = similarUsers.score(i);
 
+            matrix.forEachInteraction(similarUser, (recipeId, interactionStrength) -> {
                 // Skip recipes the user has already interacted with
                 if (interactedRecipeIds.contains(recipeId)) {
-                    continue;
+                    return;
                 }
 
                 // Score is weighted by user similarity and interaction strength
-                double interactionStrength = interaction.getViewCount() * (interaction.getSaved() ? 2.0 : 1.0);
                 double score = userSimilarity * interactionStrength;
 
-                scores.put(recipeId, scores.getOrDefault(recipeId, 0.0) + score);
-            }
+                scores.add(recipeId, score);
+            });
         }
 
         // Normalize scores to 0-1 range
-        if (!scores.isEmpty()) {
-            double maxScore = scores.values().stream().max(Double::compare).get();
-            if (maxScore > 0) {
-                scores.replaceAll((k, v) -> v / maxScore);
-            }
+        double maxScore = scores.maxValue();
+        if (maxScore > 0) {
+            scores.scale(1.0 / maxScore);
         }
 
         return scores;
     }
 
     /**
-     * Generates preference-based recommendation scores based on user preferences.
-     * Matches recipes to user's preferred categories, cuisines, and ingredients.
-     *
-     * @param user The user profile
-     * @param interactedRecipeIds Set of recipe IDs the user has already interacted with
-     * @return Map of recipe IDs to recommendation scores
+     * Offers a candidate similar user, scored with their exact Jaccard similarity, unless already offered.
      */
-    private Map<Long, Double> getPreferenceBasedScores(Profile user, Set<Long> interactedRecipeIds) {
-        Map<Long, Double> scores = new HashMap<>();
-
-        // Get all recipes
-        List<Recipe> allRecipes = recipeRepository.findAll();
-
-        // Score each recipe based on user preferences
-        for (Recipe recipe : allRecipes) {
-            if (interactedRecipeIds.contains(recipe.getId())) {
-                continue; // Skip recipes the user has already interacted with
-            }
-
-            double score = calculatePreferenceMatchScore(recipe, user);
-            if (score > 0) {
-                scores.put(recipe.getId(), score);
-            }
+    private static void offerSimilarUser(InteractionMatrix matrix, int userOrdinal, int otherUser,
+                                         LongHashSet verifiedUsers, TopK similarUsers) {
+        if (verifiedUsers.contains(otherUser)) {
+            return;
         }
+        verifiedUsers.add(otherUser);
 
-        return scores;
+        double similarity = matrix.jaccard(userOrdinal, otherUser);
+        if (similarity > 0) {
+            similarUsers.offer(otherUser, similarity);
+        }
     }
 
     /**
-     * Calculates similarity between two recipes based on ingredients, category, and cuisine.
-     * Uses Jaccard similarity for ingredient comparison and exact matching for categories.
+     * Generates collaborative filtering recommendation scores from the latent factor model.
+     * Each recipe is scored by the dot product of the user's and the recipe's factors.
      *
-     * @param recipe1 The first recipe
-     * @param recipe2 The second recipe
-     * @return A similarity score between 0.0 (no similarity) and 1.0 (identical)
+     * @param model The factor model
+     * @param userRow The user's row in the model
+     * @param interactedRecipeIds Set of recipe IDs the user has already interacted with
+     * @return Map of recipe IDs to recommendation scores
      */
-    private double calculateRecipeSimilarity(Recipe recipe1, Recipe recipe2) {
-        // Extract ingredient types for comparison
-        Set<IngredientType> ingredients1 = recipe1.getIngredients().stream()
-                .map(Ingredient::getType)
-                .collect(Collectors.toSet());
-
-        Set<IngredientType> ingredients2 = recipe2.getIngredients().stream()
-                .map(Ingredient::getType)
-                .collect(Collectors.toSet());
-
-        // Calculate Jaccard similarity for ingredients
-        double ingredientSimilarity = calculateJaccardSimilarity(ingredients1, ingredients2);
+    private LongDoubleMap getFactorModelScores(FactorModel model, int userRow, LongHashSet interactedRecipeIds) {
+        LongDoubleMap scores = new LongDoubleMap(model.recipeCount());
+
+        for (int recipeRow = 0; recipeRow < model.recipeCount(); recipeRow++) {
+            long recipeId = model.recipeId(recipeRow);
+            // Skip recipes the user has already interacted with and recipes deleted since training
+            if (interactedRecipeIds.contains(recipeId) || featureStore.get(recipeId) == null) {
+                continue;
+            }
 
-        // Calculate other similarities
-        double categorySimilarity = 0.0;
-        if (recipe1.getCategory() != null && recipe2.getCategory() != null) {
-            categorySimilarity = recipe1.getCategory().equals(recipe2.getCategory()) ? 1.0 : 0.0;
+            double score = model.score(userRow, recipeRow);
+            if (score > 0) {
+                scores.put(recipeId, score);
+            }
         }
 
-        double cuisineSimilarity = 0.0;
-        if (recipe1.getCuisine() != null && recipe2.getCuisine() != null) {
-            cuisineSimilarity = recipe1.getCuisine().equals(recipe2.getCuisine()) ? 1.0 : 0.0;
+        // Normalize scores to 0-1 range
+        double maxScore = scores.maxValue();
+        if (maxScore > 0) {
+            scores.scale(1.0 / maxScore);
         }
 
-        // Weighted combination of similarities
-        return (ingredientSimilarity * 0.6) + (categorySimilarity * 0.2) + (cuisineSimilarity * 0.2);
-    }
-
-    /**
-     * Calculates similarity between two users based on their recipe interactions.
-     * Uses Jaccard similarity on the sets of recipes each user has interacted with.
-     *
-     * @param user1Interactions Interactions of the first user
-     * @param user2Interactions Interactions of the second user
-     * @return A similarity score between 0.0 (no similarity) and 1.0 (identical)
-     */
-    private double calculateUserSimilarity(List<UserInteraction> user1Interactions, List<UserInteraction> user2Interactions) {
-        // Extract recipe IDs interacted with by each user
-        Set<Long> user1RecipeIds = user1Interactions.stream()
-                .map(i -> i.getRecipe().getId())
-                .collect(Collectors.toSet());
-
-        Set<Long> user2RecipeIds = user2Interactions.stream()
-                .map(i -> i.getRecipe().getId())
-                .collect(Collectors.toSet());
-
-        // Calculate Jaccard similarity between the sets of interacted recipes
-        return calculateJaccardSimilarity(user1RecipeIds, user2RecipeIds);
+        return scores;
     }
 
     /**
-     * Calculates how well a recipe matches a user's preferences.
-     * Considers preferred categories, cuisines, ingredients, difficulty, and prep time.
+     * Generates preference-based recommendation scores based on user preferences.
+     * Matches recipes to user's preferred categories, cuisines, and ingredients.
      *
-     * @param recipe The recipe to evaluate
-     * @param user The user profile with preferences
-     * @return A score between 0.0 (no match) and 1.0 (perfect match)
+     * @param preferences The user's preference vector
+     * @param currentMonth The month used for the seasonality boost
+     * @param columns The features of all recipes
+     * @param interactedRecipeIds Set of recipe IDs the user has already interacted with
+     * @return Map of recipe IDs to recommendation scores
      */
-    private double calculatePreferenceMatchScore(Recipe recipe, Profile user) {
-        double score = 0.0;
-
-        // Check category preference
-        if (recipe.getCategory() != null &&
-                user.getPreferredCategories().contains(recipe.getCategory())) {
-            score += 0.4;
-        }
-
-        // Check cuisine preference
-        if (recipe.getCuisine() != null &&
-                user.getPreferredCuisines().contains(recipe.getCuisine())) {
-            score += 0.4;
-        }
-
-        // Check ingredient preferences
-        Set<IngredientType> recipeIngredientTypes = recipe.getIngredients().stream()
-                .map(Ingredient::getType)
-                .collect(Collectors.toSet());
-
-        // Favorite ingredients boost score
-        Set<IngredientType> favoriteMatches = new HashSet<>(recipeIngredientTypes);
-        favoriteMatches.retainAll(user.getFavoriteIngredients());
-        score += favoriteMatches.size() * 0.2;
-
-        // Disliked ingredients reduce score
-        Set<IngredientType> dislikedMatches = new HashSet<>(recipeIngredientTypes);
-        dislikedMatches.retainAll(user.getDislikedIngredients());
-        score -= dislikedMatches.size() * 0.5;
-
-        // Check difficulty preference
-        if (user.getDifficultyPreference() != null && recipe.getDifficulty() != null &&
-                recipe.getDifficulty().equals(user.getDifficultyPreference())) {
-            score += 0.3;
-        }
-
-        // Check prep time preference
-        if (user.getMaxPrepTime() != null && recipe.getPrepTime() != null &&
-                recipe.getPrepTime() <= user.getMaxPrepTime()) {
-            score += 0.3;
-        }
-
-        // Check seasonality preference
-        if (Boolean.TRUE.equals(user.getPreferSeasonalRecipes())) {
-            RecipeSeasonalityDTO seasonality = seasonalityService.analyzeRecipeSeasonality(recipe);
-            double seasonalBoost = seasonality.getSeasonalScore() / 100.0 * 0.5;
-            score += seasonalBoost;
+    private LongDoubleMap getPreferenceBasedScores(UserPreferenceVector preferences, Month currentMonth,
+                                                   CatalogueColumns columns, LongHashSet interactedRecipeIds) {
+        // Score the whole catalogue in one pass over the columns
+        double[] matches = new double[columns.size()];
+        columns.preferenceScores(preferences, currentMonth, matches);
+
+        LongDoubleMap scores = new LongDoubleMap(matches.length);
+        for (int i = 0; i < matches.length; i++) {
+            long recipeId = columns.recipeId(i);
+            if (matches[i] > 0 && !interactedRecipeIds.contains(recipeId)) {
+                scores.put(recipeId, matches[i]);
+            }
         }
 
-        return Math.max(0.0, Math.min(1.0, score));
+        return scores;
     }
 
     /**
-     * Calculates Jaccard similarity between two sets.
-     * Jaccard similarity is defined as the size of the intersection divided by the size of the union.
+     * Converts Recipe entities to RecipeDTOs.
      *
-     * @param <T> The type of elements in the sets
-     * @param set1 The first set
-     * @param set2 The second set
-     * @return A similarity score between 0.0 (no similarity) and 1.0 (identical)
+     * @param recipes The Recipe entities
+     * @return The corresponding RecipeDTOs, in the same order
      */
-    private <T> double calculateJaccardSimilarity(Set<T> set1, Set<T> set2) {
-        if (set1.isEmpty() && set2.isEmpty()) {
-            return 0.0; // Both empty sets - no similarity
-        }
-
-        Set<T> union = new HashSet<>(set1);
-        union.addAll(set2);
-
-        Set<T> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
-
-        return (double) intersection.size() / union.size();
+    private List<RecipeDTO> convertToDTOs(List<Recipe> recipes) {
+        return recipes.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -470,10 +787,8 @@ public class RecommendationService {
      * @return The corresponding RecipeDTO
      */
     private RecipeDTO convertToDTO(Recipe recipe) {
-        // Get rating information
-        Double averageRating = ratingRepository.getAverageRatingByRecipeId(recipe.getId());
-        Integer totalRatings = ratingRepository.countByRecipeId(recipe.getId());
-        Integer totalComments = commentRepository.countByRecipeId(recipe.getId());
+        // Rating information is stored with the recipe
+        RecipeRatingSummaryDTO summary = ratingService.summarize(recipe);
 
         // Map ingredients
         List<IngredientDTO> ingredientDTOs = recipe.getIngredients().stream()
@@ -520,9 +835,80 @@ public class RecommendationService {
                         .firstName(recipe.getUser().getFirstName())
                         .lastName(recipe.getUser().getLastName())
                         .build())
-                .averageRating(averageRating != null ? averageRating : 0.0)
-                .totalRatings(totalRatings != null ? totalRatings : 0)
-                .totalComments(totalComments != null ? totalComments : 0)
+                .averageRating(summary.getAverageRating())
+                .totalRatings(summary.getTotalRatings())
+                .totalComments(summary.getTotalComments())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * The recommendations of a user, and whether they were computed with a scoring stage left out.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Recommendations {
+        private final List<RecipeDTO> recipes;
+        private final boolean degraded;
+    }
+
+    /**
+     * Inputs shared by every user scored against the same catalogue and interaction state.
+     * In a batch, the content neighbours of seed recipes are computed once and reused by all
+     * users having the seed among their favorites.
+     */
+    static final class ScoringSnapshot {
+        final Month month;
+        final CatalogueColumns columns;
+        final InteractionMatrix matrix;
+        final FactorModel model;
+        final Executor stageExecutor;
+        final long stageTimeoutMillis;
+        private final int maxSharedSeeds;
+        private final Map<Long, LongDoubleMap> seedNeighbours = new ConcurrentHashMap<>();
+        private volatile boolean degraded;
+
+        /**
+         * @param month The month used for the seasonality boost
+         * @param columns The catalogue to score
+         * @param matrix The interaction matrix used for similar users
+         * @param model The factor model, or null to always use similar users
+         * @param stageExecutor The executor running the scoring stages
+         * @param maxSharedSeeds The maximum number of seed recipes whose content neighbours are shared
+         * @param stageTimeoutMillis The maximum time a stage may take, or {@link RecommendationService#NO_STAGE_TIMEOUT} to always wait
+         */
+        ScoringSnapshot(Month month, CatalogueColumns columns, InteractionMatrix matrix, FactorModel model,
+                        Executor stageExecutor, int maxSharedSeeds, long stageTimeoutMillis) {
+            this.month = month;
+            this.columns = columns;
+            this.matrix = matrix;
+            this.model = model;
+            this.stageExecutor = stageExecutor;
+            this.maxSharedSeeds = maxSharedSeeds;
+            this.stageTimeoutMillis = stageTimeoutMillis;
+        }
+
+        void markDegraded() {
+            degraded = true;
+        }
+
+        /**
+         * @return Whether a stage scored against this snapshot timed out and was left out
+         */
+        boolean isDegraded() {
+            return degraded;
+        }
+
+        LongDoubleMap neighboursOf(Long seedRecipeId, Function<Long, LongDoubleMap> finder) {
+            LongDoubleMap shared = seedNeighbours.get(seedRecipeId);
+            if (shared != null) {
+                return shared;
+            }
+
+            LongDoubleMap neighbours = finder.apply(seedRecipeId);
+            if (seedNeighbours.size() < maxSharedSeeds) {
+                seedNeighbours.putIfAbsent(seedRecipeId, neighbours);
+            }
+            return neighbours;
+        }
+    }
+}
@@ -2,16 +2,20 @@ package com.thesis.receiptify.service;
 
 import com.thesis.receiptify.model.Ingredient;
 import com.thesis.receiptify.model.Recipe;
+import com.thesis.receiptify.model.RecipeSeasonalScore;
 import com.thesis.receiptify.model.dto.IngredientSeasonalityDTO;
 import com.thesis.receiptify.model.dto.RecipeSeasonalityDTO;
 import com.thesis.receiptify.model.enums.IngredientSeasonality;
 import com.thesis.receiptify.model.enums.IngredientSeasonality.SeasonalityStatus;
+import com.thesis.receiptify.model.enums.IngredientType;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -100,9 +104,102 @@ public class SeasonalityService {
         // Count truly seasonal ingredients (in season but not year-round)
         long trulySeasonalCount = inSeasonCount - yearRoundCount;
 
+        int adjustedScore = calculateAdjustedScore(inSeasonCount, yearRoundCount, ingredientSeasonalities.size());
+
+        return RecipeSeasonalityDTO.builder()
+                .recipeId(recipe.getId())
+                .seasonalScore(adjustedScore)
+                .inSeasonCount((int) inSeasonCount)
+                .outOfSeasonCount((int) outOfSeasonCount)
+                .yearRoundCount((int) yearRoundCount)
+                .trulySeasonalCount((int) trulySeasonalCount)
+                .ingredientSeasonality(ingredientSeasonalities)
+                .build();
+    }
+
+    /**
+     * Recomputes the per-month seasonal scores stored with a recipe from its current ingredients.
+     * Existing rows are updated in place, so a recipe always keeps exactly one row per month.
+     * Must be called whenever a recipe's ingredients change, before the recipe is saved.
+     *
+     * @param recipe The recipe to score
+     */
+    public void updateSeasonalScores(Recipe recipe) {
+        List<IngredientType> types = new ArrayList<>();
+        if (recipe.getIngredients() != null) {
+            for (Ingredient ingredient : recipe.getIngredients()) {
+                types.add(ingredient.getType());
+            }
+        }
+
+        if (recipe.getSeasonalScores() == null) {
+            recipe.setSeasonalScores(new ArrayList<>());
+        }
+        Map<Month, RecipeSeasonalScore> existing = new EnumMap<>(Month.class);
+        for (RecipeSeasonalScore seasonalScore : recipe.getSeasonalScores()) {
+            existing.put(seasonalScore.getMonth(), seasonalScore);
+        }
+
+        for (Month month : Month.values()) {
+            int score = calculateSeasonalScore(types, month);
+            RecipeSeasonalScore seasonalScore = existing.get(month);
+            if (seasonalScore == null) {
+                recipe.getSeasonalScores().add(RecipeSeasonalScore.builder()
+                        .recipe(recipe)
+                        .month(month)
+                        .score(score)
+                        .build());
+            } else {
+                seasonalScore.setScore(score);
+            }
+        }
+    }
+
+    /**
+     * Calculates the seasonality score of a list of ingredient types for a given month.
+     * Produces the same score as {@link #analyzeRecipeSeasonality(Recipe)} without building
+     * the per-ingredient breakdown, so it can be precomputed for every month.
+     *
+     * @param ingredientTypes The ingredient types of a recipe, one entry per ingredient
+     * @param month The month to score against
+     * @return The seasonality score (0-100)
+     */
+    public int calculateSeasonalScore(List<IngredientType> ingredientTypes, Month month) {
+        long total = 0;
+        long inSeasonCount = 0;
+        long yearRoundCount = 0;
+
+        for (IngredientType type : ingredientTypes) {
+            if (type == null) {
+                continue;
+            }
+            total++;
+            if (type.getSeasonality().getStatus(month) == SeasonalityStatus.IN_SEASON) {
+                inSeasonCount++;
+            }
+            if (type.getSeasonality() == IngredientSeasonality.YEAR_ROUND) {
+                yearRoundCount++;
+            }
+        }
+
+        return calculateAdjustedScore(inSeasonCount, yearRoundCount, total);
+    }
+
+    /**
+     * Turns ingredient counts into a seasonality score.
+     *
+     * @param inSeasonCount Number of ingredients in season
+     * @param yearRoundCount Number of year-round ingredients
+     * @param total Total number of ingredients
+     * @return The seasonality score (0-100)
+     */
+    private int calculateAdjustedScore(long inSeasonCount, long yearRoundCount, long total) {
+        // Count truly seasonal ingredients (in season but not year-round)
+        long trulySeasonalCount = inSeasonCount - yearRoundCount;
+
         // Calculate basic seasonal score (as before)
-        int basicScore = ingredientSeasonalities.isEmpty() ? 0 :
-                (int) Math.round((double) inSeasonCount / ingredientSeasonalities.size() * 100);
+        int basicScore = total == 0 ? 0 :
+                (int) Math.round((double) inSeasonCount / total * 100);
 
         // Apply a bonus for recipes with seasonal (non-year-round) ingredients
         // and a slight penalty for recipes with only year-round ingredients
@@ -110,21 +207,13 @@ public class SeasonalityService {
 
         if (trulySeasonalCount > 0) {
             // Bonus for having truly seasonal ingredients (up to +15 points)
-            int seasonalBonus = (int) Math.min(15, Math.round((double) trulySeasonalCount / ingredientSeasonalities.size() * 30));
+            int seasonalBonus = (int) Math.min(15, Math.round((double) trulySeasonalCount / total * 30));
             adjustedScore = Math.min(100, adjustedScore + seasonalBonus);
-        } else if (yearRoundCount == ingredientSeasonalities.size() && yearRoundCount > 0) {
+        } else if (yearRoundCount == total && yearRoundCount > 0) {
             // Small penalty for recipes with only year-round ingredients
             adjustedScore = Math.max(0, adjustedScore - 10);
         }
 
-        return RecipeSeasonalityDTO.builder()
-                .recipeId(recipe.getId())
-                .seasonalScore(adjustedScore)
-                .inSeasonCount((int) inSeasonCount)
-                .outOfSeasonCount((int) outOfSeasonCount)
-                .yearRoundCount((int) yearRoundCount)
-                .trulySeasonalCount((int) trulySeasonalCount)
-                .ingredientSeasonality(ingredientSeasonalities)
-                .build();
+        return adjustedScore;
     }
 }
@@ -0,0 +1,268 @@
+package com.thesis.receiptify.service;
+
+import com.thesis.receiptify.model.RecipeTrendingScore;
+import com.thesis.receiptify.repository.RecipeTrendingScoreRepository;
+import com.thesis.receiptify.service.recommendation.LongDoubleMap;
+import com.thesis.receiptify.service.recommendation.RecipeFeatureStore;
+import com.thesis.receiptify.service.recommendation.RecipeFeatures;
+import com.thesis.receiptify.service.recommendation.TopK;
+import com.thesis.receiptify.util.TransactionUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Service responsible for the "trending now" feed.
+ * Views, saves, ratings and comments feed exponentially decayed per-recipe counters held in memory,
+ * so recent activity outweighs old activity. Ranked lists for every category, cuisine and
+ * category/cuisine combination are rebuilt every minute, making a trending lookup a single map read.
+ * The counters are checkpointed to the recipe_trending_scores table and restored at startup.
+ */
+@Service
+public class TrendingService {
+
+    /**
+     * Maximum number of recipes kept per ranked list.
+     */
+    public static final int MAX_TRENDING = 50;
+
+    // Time for a recipe's score to halve without new activity
+    private static final Duration HALF_LIFE = Duration.ofHours(24);
+    private static final double DECAY_PER_MILLI = Math.log(2) / HALF_LIFE.toMillis();
+
+    // Event weights
+    private static final double VIEW_WEIGHT = 1.0;
+    private static final double SAVE_WEIGHT = 3.0;
+    private static final double RATING_WEIGHT = 2.0;
+    private static final double COMMENT_WEIGHT = 2.0;
+
+    // Counters that have decayed below this are dropped at checkpoint time
+    private static final double MIN_SCORE = 0.01;
+
+    private final RecipeTrendingScoreRepository trendingScoreRepository;
+    private final RecipeFeatureStore featureStore;
+    private final TransactionTemplate transactionTemplate;
+
+    /*
+     * Scores are stored relative to epochMillis: an event of weight w at time t adds
+     * w * exp(decay * (t - epoch)), and the current score is the counter times
+     * exp(-decay * (now - epoch)). Decaying then costs nothing, since it scales every
+     * counter by the same factor; the epoch is moved forward at each checkpoint.
+     */
+    private LongDoubleMap counters = new LongDoubleMap();
+    private long epochMillis = System.currentTimeMillis();
+
+    private volatile Map<String, List<Long>> rankings = Map.of();
+
+    public TrendingService(RecipeTrendingScoreRepository trendingScoreRepository,
+                           RecipeFeatureStore featureStore,
+                           PlatformTransactionManager transactionManager) {
+        this.trendingScoreRepository = trendingScoreRepository;
+        this.featureStore = featureStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Records a recipe view once the surrounding transaction commits.
+     *
+     * @param recipeId The ID of the viewed recipe
+     */
+    public void recordView(Long recipeId) {
+        recordAfterCommit(recipeId, VIEW_WEIGHT);
+    }
+
+    /**
+     * Records a recipe save once the surrounding transaction commits.
+     *
+     * @param recipeId The ID of the saved recipe
+     */
+    public void recordSave(Long recipeId) {
+        recordAfterCommit(recipeId, SAVE_WEIGHT);
+    }
+
+    /**
+     * Records a rating once the surrounding transaction commits.
+     * Higher ratings count more.
+     *
+     * @param recipeId The ID of the rated recipe
+     * @param stars The rating, from 1 to 5
+     */
+    public void recordRating(Long recipeId, int stars) {
+        recordAfterCommit(recipeId, RATING_WEIGHT * stars / 5.0);
+    }
+
+    /**
+     * Records a comment once the surrounding transaction commits.
+     *
+     * @param recipeId The ID of the commented recipe
+     */
+    public void recordComment(Long recipeId) {
+        recordAfterCommit(recipeId, COMMENT_WEIGHT);
+    }
+
+    /**
+     * Gets the currently trending recipes, optionally narrowed to a category and/or cuisine.
+     *
+     * @param category The category to filter by, or null for all categories
+     * @param cuisine The cuisine to filter by, or null for all cuisines
+     * @param limit The maximum number of recipes to return, at most {@link #MAX_TRENDING}
+     * @return The trending recipe IDs, most trending first
+     */
+    public List<Long> getTrendingRecipeIds(String category, String cuisine, int limit) {
+        List<Long> ranking = rankings.getOrDefault(rankingKey(category, cuisine), List.of());
+        return ranking.subList(0, Math.max(0, Math.min(limit, ranking.size())));
+    }
+
+    /**
+     * Rebuilds the ranked lists from the current counters.
+     * Deleted recipes, which are no longer in the feature store, are left out.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void refreshRankings() {
+        LongDoubleMap scores = currentScores();
+
+        List<String> categories = featureStore.categoryValues();
+        List<String> cuisines = featureStore.cuisineValues();
+
+        Map<String, TopK> selections = new HashMap<>();
+        scores.forEach((recipeId, score) -> {
+            RecipeFeatures features = featureStore.get(recipeId);
+            if (features == null) {
+                return;
+            }
+            String category = valueOf(categories, features.getCategoryCode());
+            String cuisine = valueOf(cuisines, features.getCuisineCode());
+
+            offer(selections, rankingKey(null, null), recipeId, score);
+            if (category != null) {
+                offer(selections, rankingKey(category, null), recipeId, score);
+            }
+            if (cuisine != null) {
+                offer(selections, rankingKey(null, cuisine), recipeId, score);
+            }
+            if (category != null && cuisine != null) {
+                offer(selections, rankingKey(category, cuisine), recipeId, score);
+            }
+        });
+
+        Map<String, List<Long>> refreshed = new HashMap<>();
+        selections.forEach((key, selection) -> {
+            selection.sort();
+            Long[] ids = new Long[selection.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = selection.id(i);
+            }
+            refreshed.put(key, List.of(ids));
+        });
+        rankings = refreshed;
+    }
+
+    /**
+     * Writes the current counters to the checkpoint table, replacing the previous checkpoint.
+     * Counters that have decayed to almost nothing are dropped from memory as well.
+     */
+    @Scheduled(fixedDelay = 300_000, initialDelay = 300_000)
+    public void checkpoint() {
+        LongDoubleMap scores = rebase();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<RecipeTrendingScore> checkpoint = new ArrayList<>(scores.size());
+        scores.forEach((recipeId, score) -> checkpoint.add(RecipeTrendingScore.builder()
+                .recipeId(recipeId)
+                .score(score)
+                .checkpointedAt(now)
+                .build()));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                trendingScoreRepository.deleteAllInBatch();
+                trendingScoreRepository.saveAll(checkpoint);
+            });
+        } catch (Exception e) {
+            System.err.println("Failed to checkpoint trending scores: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Restores the counters from the last checkpoint, decayed to the current time,
+     * and builds the ranked lists. Called once at startup.
+     */
+    public void restore() {
+        LocalDateTime now = LocalDateTime.now();
+        List<RecipeTrendingScore> checkpoint = trendingScoreRepository.findAll();
+
+        synchronized (this) {
+            for (RecipeTrendingScore saved : checkpoint) {
+                long age = Math.max(0, Duration.between(saved.getCheckpointedAt(), now).toMillis());
+                double score = saved.getScore() * Math.exp(-DECAY_PER_MILLI * age);
+                counters.add(saved.getRecipeId(), score * growth(System.currentTimeMillis()));
+            }
+        }
+
+        refreshRankings();
+    }
+
+    private void recordAfterCommit(Long recipeId, double weight) {
+        TransactionUtils.afterCommit(() -> record(recipeId, weight));
+    }
+
+    private synchronized void record(long recipeId, double weight) {
+        counters.add(recipeId, weight * growth(System.currentTimeMillis()));
+    }
+
+    /**
+     * @return A copy of all counters decayed to the current time
+     */
+    private synchronized LongDoubleMap currentScores() {
+        double decay = 1.0 / growth(System.currentTimeMillis());
+        LongDoubleMap scores = new LongDoubleMap(counters.size());
+        counters.forEach((recipeId, counter) -> scores.put(recipeId, counter * decay));
+        return scores;
+    }
+
+    /**
+     * Moves the epoch to the current time, dropping counters below {@link #MIN_SCORE}.
+     *
+     * @return The remaining counters, which are now the current scores
+     */
+    private synchronized LongDoubleMap rebase() {
+        long now = System.currentTimeMillis();
+        double decay = 1.0 / growth(now);
+
+        LongDoubleMap rebased = new LongDoubleMap(counters.size());
+        counters.forEach((recipeId, counter) -> {
+            double score = counter * decay;
+            if (score >= MIN_SCORE) {
+                rebased.put(recipeId, score);
+            }
+        });
+
+        counters = rebased;
+        epochMillis = now;
+
+        LongDoubleMap scores = new LongDoubleMap(rebased.size());
+        rebased.forEach(scores::put);
+        return scores;
+    }
+
+    private double growth(long timeMillis) {
+        return Math.exp(DECAY_PER_MILLI * (timeMillis - epochMillis));
+    }
+
+    private static void offer(Map<String, TopK> selections, String key, long recipeId, double score) {
+        selections.computeIfAbsent(key, k -> new TopK(MAX_TRENDING)).offer(recipeId, score);
+    }
+
+    private static String valueOf(List<String> values, int code) {
+        return code >= 0 && code < values.size() ? values.get(code) : null;
+    }
+
+    private static String rankingKey(String category, String cuisine) {
+        return (category != null ? category : "") + '\u0000' + (cuisine != null ? cuisine : "");
+    }
+}
@@ -0,0 +1,215 @@
+package com.thesis.receiptify.service.recommendation;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Implicit-feedback alternating least squares (Hu, Koren and Volinsky).
+ * Every interaction is treated as a positive preference with confidence
+ * {@code 1 + alpha * log(1 + weight)}; unobserved pairs are negatives with confidence 1.
+ * Each half-iteration solves the rows of one side independently, in parallel.
+ */
+final class AlsTrainer {
+    private final int factors;
+    private final int iterations;
+    private final double lambda;
+    private final double alpha;
+
+    AlsTrainer(int factors, int iterations, double lambda, double alpha) {
+        this.factors = factors;
+        this.iterations = iterations;
+        this.lambda = lambda;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Trains a model from interaction cells.
+     *
+     * @param cellUsers The user ID of each cell
+     * @param cellRecipes The recipe ID of each cell
+     * @param cellWeights The interaction weight of each cell
+     * @param pool The pool the row solves run on
+     * @return The trained model
+     */
+    FactorModel train(long[] cellUsers, long[] cellRecipes, float[] cellWeights, ForkJoinPool pool) {
+        long[] userIds = distinctSorted(cellUsers);
+        long[] recipeIds = distinctSorted(cellRecipes);
+
+        int[] userRows = new int[cellUsers.length];
+        int[] recipeRows = new int[cellRecipes.length];
+        float[] confidences = new float[cellWeights.length];
+        for (int i = 0; i < cellWeights.length; i++) {
+            userRows[i] = Arrays.binarySearch(userIds, cellUsers[i]);
+            recipeRows[i] = Arrays.binarySearch(recipeIds, cellRecipes[i]);
+            confidences[i] = (float) (1.0 + alpha * Math.log1p(cellWeights[i]));
+        }
+
+        Csr byUser = Csr.of(userIds.length, userRows, recipeRows, confidences);
+        Csr byRecipe = Csr.of(recipeIds.length, recipeRows, userRows, confidences);
+
+        Random random = new Random(42);
+        float[] userFactors = new float[userIds.length * factors];
+        float[] recipeFactors = new float[recipeIds.length * factors];
+        for (int i = 0; i < recipeFactors.length; i++) {
+            recipeFactors[i] = (float) (random.nextGaussian() * 0.01);
+        }
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            solve(userFactors, byUser, recipeFactors, pool);
+            solve(recipeFactors, byRecipe, userFactors, pool);
+        }
+
+        return new FactorModel(factors, System.currentTimeMillis(), userIds, userFactors, recipeIds, recipeFactors);
+    }
+
+    /**
+     * Solves every row of one side given the fixed factors of the other side.
+     *
+     * @param target The factors to solve for
+     * @param rows The interactions of each target row
+     * @param fixed The factors of the other side
+     * @param pool The pool the row solves run on
+     */
+    private void solve(float[] target, Csr rows, float[] fixed, ForkJoinPool pool) {
+        double[] gram = gram(fixed);
+
+        pool.submit(() -> IntStream.range(0, rows.rowCount).parallel().forEach(row -> {
+            double[] a = gram.clone();
+            double[] b = new double[factors];
+            for (int k = 0; k < factors; k++) {
+                a[k * factors + k] += lambda;
+            }
+
+            // A = YtY + Yt(Cu - I)Y + lambda*I, b = Yt Cu p(u)
+            for (int entry = rows.rowPtr[row]; entry < rows.rowPtr[row + 1]; entry++) {
+                int offset = rows.cols[entry] * factors;
+                double confidence = rows.values[entry];
+                for (int p = 0; p < factors; p++) {
+                    double yp = fixed[offset + p];
+                    b[p] += confidence * yp;
+                    double scaled = (confidence - 1.0) * yp;
+                    for (int q = 0; q <= p; q++) {
+                        a[p * factors + q] += scaled * fixed[offset + q];
+                    }
+                }
+            }
+
+            choleskySolve(a, b);
+            int targetOffset = row * factors;
+            for (int k = 0; k < factors; k++) {
+                target[targetOffset + k] = (float) b[k];
+            }
+        })).join();
+    }
+
+    /**
+     * Computes the lower triangle of YtY.
+     *
+     * @param fixed The factors Y, row-major
+     * @return The factors x factors matrix YtY, only the lower triangle filled in
+     */
+    private double[] gram(float[] fixed) {
+        double[] gram = new double[factors * factors];
+        for (int offset = 0; offset < fixed.length; offset += factors) {
+            for (int p = 0; p < factors; p++) {
+                double yp = fixed[offset + p];
+                for (int q = 0; q <= p; q++) {
+                    gram[p * factors + q] += yp * fixed[offset + q];
+                }
+            }
+        }
+        return gram;
+    }
+
+    /**
+     * Solves Ax = b in place for a symmetric positive definite A given by its lower triangle.
+     * On return b holds x; the lower triangle of A holds its Cholesky factor.
+     */
+    private void choleskySolve(double[] a, double[] b) {
+        int n = factors;
+        for (int j = 0; j < n; j++) {
+            double diagonal = a[j * n + j];
+            for (int k = 0; k < j; k++) {
+                diagonal -= a[j * n + k] * a[j * n + k];
+            }
+            diagonal = Math.sqrt(Math.max(diagonal, 1e-12));
+            a[j * n + j] = diagonal;
+            for (int i = j + 1; i < n; i++) {
+                double value = a[i * n + j];
+                for (int k = 0; k < j; k++) {
+                    value -= a[i * n + k] * a[j * n + k];
+                }
+                a[i * n + j] = value / diagonal;
+            }
+        }
+
+        // Forward substitution L y = b
+        for (int i = 0; i < n; i++) {
+            double value = b[i];
+            for (int k = 0; k < i; k++) {
+                value -= a[i * n + k] * b[k];
+            }
+            b[i] = value / a[i * n + i];
+        }
+
+        // Back substitution Lt x = y
+        for (int i = n - 1; i >= 0; i--) {
+            double value = b[i];
+            for (int k = i + 1; k < n; k++) {
+                value -= a[k * n + i] * b[k];
+            }
+            b[i] = value / a[i * n + i];
+        }
+    }
+
+    private static long[] distinctSorted(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * Compressed sparse rows of confidences.
+     */
+    private static final class Csr {
+        final int rowCount;
+        final int[] rowPtr;
+        final int[] cols;
+        final float[] values;
+
+        private Csr(int rowCount, int[] rowPtr, int[] cols, float[] values) {
+            this.rowCount = rowCount;
+            this.rowPtr = rowPtr;
+            this.cols = cols;
+            this.values = values;
+        }
+
+        static Csr of(int rowCount, int[] cellRows, int[] cellCols, float[] cellValues) {
+            int[] rowPtr = new int[rowCount + 1];
+            for (int row : cellRows) {
+                rowPtr[row + 1]++;
+            }
+            for (int row = 0; row < rowCount; row++) {
+                rowPtr[row + 1] += rowPtr[row];
+            }
+
+            int[] cols = new int[cellCols.length];
+            float[] values = new float[cellValues.length];
+            int[] fill = Arrays.copyOf(rowPtr, rowCount);
+            for (int i = 0; i < cellRows.length; i++) {
+                int position = fill[cellRows[i]]++;
+                cols[position] = cellCols[i];
+                values[position] = cellValues[i];
+            }
+            return new Csr(rowCount, rowPtr, cols, values);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.thesis.receiptify.service.recommendation;
+
+import java.time.Month;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable column-oriented copy of the recipe catalogue for full-catalogue scoring.
+ * Each feature is stored in its own contiguous primitive array (ingredient bitmaps flattened
+ * into one long array), so the scoring kernels are straight loops over arrays instead of
+ * chasing one {@link RecipeFeatures} object per recipe.
+ *
+ * Ingredient overlap is computed on the bitmaps with AND and popcount, which handles 64
+ * ingredient types per instruction. Similarity scoring only visits the recipes sharing an
+ * ingredient, the category or the cuisine with the seed, found through posting lists of
+ * column positions built with the columns.
+ */
+public final class CatalogueColumns {
+    // Recipe similarity weights
+    public static final double INGREDIENT_SIMILARITY_WEIGHT = 0.6;
+    public static final double CATEGORY_SIMILARITY_WEIGHT = 0.2;
+    public static final double CUISINE_SIMILARITY_WEIGHT = 0.2;
+
+    // Preference match weights
+    private static final double PREFERRED_CATEGORY_SCORE = 0.4;
+    private static final double PREFERRED_CUISINE_SCORE = 0.4;
+    private static final double FAVORITE_INGREDIENT_SCORE = 0.2;
+    private static final double DISLIKED_INGREDIENT_PENALTY = 0.5;
+    private static final double DIFFICULTY_SCORE = 0.3;
+    private static final double PREP_TIME_SCORE = 0.3;
+    private static final double SEASONAL_SCORE = 0.5;
+
+    private static final int WORDS = RecipeFeatures.INGREDIENT_WORDS;
+    private static final int MONTHS = Month.values().length;
+
+    private final int size;
+    private final long[] recipeIds;
+    private final long[] ingredientBits;
+    private final int[] ingredientCounts;
+    private final int[] categoryCodes;
+    private final int[] cuisineCodes;
+    private final int[] difficultyCodes;
+    private final int[] prepTimes;
+    private final byte[] seasonalScores;
+    private final int maxCategoryCode;
+    private final int maxCuisineCode;
+
+    // Column positions of the recipes having each ingredient ordinal, category code and cuisine code
+    private final int[][] positionsByIngredient;
+    private final int[][] positionsByCategory;
+    private final int[][] positionsByCuisine;
+
+    private CatalogueColumns(List<RecipeFeatures> recipes) {
+        size = recipes.size();
+        recipeIds = new long[size];
+        ingredientBits = new long[size * WORDS];
+        ingredientCounts = new int[size];
+        categoryCodes = new int[size];
+        cuisineCodes = new int[size];
+        difficultyCodes = new int[size];
+        prepTimes = new int[size];
+        seasonalScores = new byte[size * MONTHS];
+
+        int maxCategory = RecipeFeatures.NO_CODE;
+        int maxCuisine = RecipeFeatures.NO_CODE;
+        int i = 0;
+        for (RecipeFeatures recipe : recipes) {
+            recipeIds[i] = recipe.getRecipeId();
+            System.arraycopy(recipe.getIngredientBits(), 0, ingredientBits, i * WORDS, WORDS);
+            ingredientCounts[i] = recipe.getIngredientCount();
+            categoryCodes[i] = recipe.getCategoryCode();
+            cuisineCodes[i] = recipe.getCuisineCode();
+            difficultyCodes[i] = recipe.getDifficultyCode();
+            prepTimes[i] = recipe.getPrepTime();
+            System.arraycopy(recipe.getSeasonalScores(), 0, seasonalScores, i * MONTHS, MONTHS);
+            maxCategory = Math.max(maxCategory, recipe.getCategoryCode());
+            maxCuisine = Math.max(maxCuisine, recipe.getCuisineCode());
+            i++;
+        }
+        maxCategoryCode = maxCategory;
+        maxCuisineCode = maxCuisine;
+
+        positionsByIngredient = ingredientPostings();
+        positionsByCategory = codePostings(categoryCodes, maxCategoryCode);
+        positionsByCuisine = codePostings(cuisineCodes, maxCuisineCode);
+    }
+
+    /**
+     * Copies a set of recipe features into columns.
+     *
+     * @param recipes The recipe features
+     * @return The columns, in the order of the list
+     */
+    public static CatalogueColumns of(List<RecipeFeatures> recipes) {
+        return new CatalogueColumns(recipes);
+    }
+
+    /**
+     * @return The number of recipes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The position of a recipe in the columns
+     * @return The ID of the recipe
+     */
+    public long recipeId(int index) {
+        return recipeIds[index];
+    }
+
+    /**
+     * Calculates the similarity of recipes to a seed recipe: the weighted sum of the Jaccard
+     * similarity of their ingredients and exact matches of category and cuisine. Only recipes
+     * sharing an ingredient, the category or the cuisine with the seed can score above zero,
+     * so only those are scored.
+     *
+     * @param seed The features of the seed recipe
+     * @param out Receives the ID and similarity, between 0.0 and 1.0, of every recipe scoring above zero,
+     *            excluding the seed itself
+     */
+    public void similarityScores(RecipeFeatures seed, LongDoubleMap out) {
+        long[] seedBits = seed.getIngredientBits();
+        int seedCount = seed.getIngredientCount();
+        int seedCategory = seed.getCategoryCode();
+        int seedCuisine = seed.getCuisineCode();
+
+        BitSet candidates = new BitSet(size);
+        for (int word = 0; word < WORDS; word++) {
+            long remaining = seedBits[word];
+            while (remaining != 0) {
+                int ordinal = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                mark(candidates, positionsByIngredient, ordinal);
+                remaining &= remaining - 1;
+            }
+        }
+        mark(candidates, positionsByCategory, seedCategory);
+        mark(candidates, positionsByCuisine, seedCuisine);
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (recipeIds[i] == seed.getRecipeId()) {
+                continue;
+            }
+            int offset = i * WORDS;
+            int shared = 0;
+            for (int w = 0; w < WORDS; w++) {
+                shared += Long.bitCount(ingredientBits[offset + w] & seedBits[w]);
+            }
+            int union = seedCount + ingredientCounts[i] - shared;
+
+            double score = union > 0 ? INGREDIENT_SIMILARITY_WEIGHT * shared / union : 0.0;
+            if (seedCategory != RecipeFeatures.NO_CODE && categoryCodes[i] == seedCategory) {
+                score += CATEGORY_SIMILARITY_WEIGHT;
+            }
+            if (seedCuisine != RecipeFeatures.NO_CODE && cuisineCodes[i] == seedCuisine) {
+                score += CUISINE_SIMILARITY_WEIGHT;
+            }
+            if (score > 0) {
+                out.put(recipeIds[i], score);
+            }
+        }
+    }
+
+    /**
+     * Calculates how well every recipe matches a user's preferences.
+     * Considers preferred categories, cuisines, ingredients, difficulty, prep time and seasonality.
+     *
+     * @param preferences The user's preference vector
+     * @param month The month used for the seasonality boost
+     * @param out Receives the match of each recipe, between 0.0 and 1.0; at least {@link #size()} long
+     */
+    public void preferenceScores(UserPreferenceVector preferences, Month month, double[] out) {
+        // Turn the preferred code lists into lookup tables so the loop does no searching
+        double[] categoryScores = codeScores(preferences.getCategoryCodes(), maxCategoryCode, PREFERRED_CATEGORY_SCORE);
+        double[] cuisineScores = codeScores(preferences.getCuisineCodes(), maxCuisineCode, PREFERRED_CUISINE_SCORE);
+
+        long[] favoriteBits = preferences.getFavoriteBits();
+        long[] dislikedBits = preferences.getDislikedBits();
+        int difficulty = preferences.getDifficultyCode();
+        int maxPrepTime = preferences.getMaxPrepTime();
+        boolean seasonal = preferences.isPreferSeasonal();
+        int monthOffset = month.ordinal();
+
+        for (int i = 0; i < size; i++) {
+            double score = 0.0;
+
+            if (categoryCodes[i] != RecipeFeatures.NO_CODE) {
+                score += categoryScores[categoryCodes[i]];
+            }
+            if (cuisineCodes[i] != RecipeFeatures.NO_CODE) {
+                score += cuisineScores[cuisineCodes[i]];
+            }
+
+            int offset = i * WORDS;
+            int favorites = 0;
+            int dislikes = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long bits = ingredientBits[offset + w];
+                favorites += Long.bitCount(bits & favoriteBits[w]);
+                dislikes += Long.bitCount(bits & dislikedBits[w]);
+            }
+            score += favorites * FAVORITE_INGREDIENT_SCORE - dislikes * DISLIKED_INGREDIENT_PENALTY;
+
+            if (difficulty != RecipeFeatures.NO_CODE && difficultyCodes[i] == difficulty) {
+                score += DIFFICULTY_SCORE;
+            }
+            if (maxPrepTime != RecipeFeatures.NO_CODE && prepTimes[i] != RecipeFeatures.NO_CODE &&
+                    prepTimes[i] <= maxPrepTime) {
+                score += PREP_TIME_SCORE;
+            }
+            if (seasonal) {
+                score += seasonalScores[i * MONTHS + monthOffset] / 100.0 * SEASONAL_SCORE;
+            }
+
+            out[i] = Math.max(0.0, Math.min(1.0, score));
+        }
+    }
+
+    /**
+     * Builds a table holding the given score at each listed code and 0.0 elsewhere.
+     */
+    private static double[] codeScores(int[] codes, int maxCode, double score) {
+        double[] scores = new double[maxCode + 1];
+        for (int code : codes) {
+            if (code >= 0 && code <= maxCode) {
+                scores[code] = score;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Groups the column positions by ingredient ordinal.
+     */
+    private int[][] ingredientPostings() {
+        int[] counts = new int[WORDS * 64];
+        for (int i = 0; i < size; i++) {
+            forEachIngredient(i, ordinal -> counts[ordinal]++);
+        }
+        int[][] postings = new int[counts.length][];
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            postings[ordinal] = new int[counts[ordinal]];
+            counts[ordinal] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            int position = i;
+            forEachIngredient(i, ordinal -> postings[ordinal][counts[ordinal]++] = position);
+        }
+        return postings;
+    }
+
+    private void forEachIngredient(int position, IntConsumer consumer) {
+        for (int word = 0; word < WORDS; word++) {
+            long remaining = ingredientBits[position * WORDS + word];
+            while (remaining != 0) {
+                consumer.accept((word << 6) + Long.numberOfTrailingZeros(remaining));
+                remaining &= remaining - 1;
+            }
+        }
+    }
+
+    /**
+     * Groups the column positions by code, leaving out recipes without a code.
+     */
+    private int[][] codePostings(int[] codes, int maxCode) {
+        int[] counts = new int[maxCode + 1];
+        for (int i = 0; i < size; i++) {
+            if (codes[i] != RecipeFeatures.NO_CODE) {
+                counts[codes[i]]++;
+            }
+        }
+        int[][] postings = new int[counts.length][];
+        for (int code = 0; code < counts.length; code++) {
+            postings[code] = new int[counts[code]];
+            counts[code] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            if (codes[i] != RecipeFeatures.NO_CODE) {
+                postings[codes[i]][counts[codes[i]]++] = i;
+            }
+        }
+        return postings;
+    }
+
+    private static void mark(BitSet candidates, int[][] postings, int key) {
+        if (key < 0 || key >= postings.length) {
+            return;
+        }
+        for (int position : postings[key]) {
+            candidates.set(position);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.thesis.receiptify.service.recommendation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Immutable latent factor model for collaborative recommendations.
+ * User and recipe factors are stored row-major in flat float arrays, with the user and
+ * recipe IDs of the rows in ascending order so rows are found by binary search.
+ */
+public final class FactorModel {
+    private static final int MAGIC = 0x52414C53; // "RALS"
+    private static final int VERSION = 1;
+
+    private final int factors;
+    private final long trainedAt;
+    private final long[] userIds;
+    private final float[] userFactors;
+    private final long[] recipeIds;
+    private final float[] recipeFactors;
+
+    public FactorModel(int factors, long trainedAt, long[] userIds, float[] userFactors,
+                       long[] recipeIds, float[] recipeFactors) {
+        this.factors = factors;
+        this.trainedAt = trainedAt;
+        this.userIds = userIds;
+        this.userFactors = userFactors;
+        this.recipeIds = recipeIds;
+        this.recipeFactors = recipeFactors;
+    }
+
+    /**
+     * @return The number of latent factors per row
+     */
+    public int getFactors() {
+        return factors;
+    }
+
+    /**
+     * @return When the model was trained, in epoch milliseconds
+     */
+    public long getTrainedAt() {
+        return trainedAt;
+    }
+
+    /**
+     * @param userId The ID of a user
+     * @return The user's row in the model, or -1 if the user had no interactions at training time
+     */
+    public int findUser(long userId) {
+        int row = Arrays.binarySearch(userIds, userId);
+        return row >= 0 ? row : -1;
+    }
+
+    /**
+     * @return The number of users in the model
+     */
+    public int userCount() {
+        return userIds.length;
+    }
+
+    /**
+     * @return The number of recipes in the model
+     */
+    public int recipeCount() {
+        return recipeIds.length;
+    }
+
+    /**
+     * @param recipeRow A recipe row of the model
+     * @return The ID of the recipe in that row
+     */
+    public long recipeId(int recipeRow) {
+        return recipeIds[recipeRow];
+    }
+
+    /**
+     * Predicts a user's preference for a recipe as the dot product of their factors.
+     *
+     * @param userRow A user row of the model
+     * @param recipeRow A recipe row of the model
+     * @return The predicted preference, roughly between 0 and 1
+     */
+    public double score(int userRow, int recipeRow) {
+        int userOffset = userRow * factors;
+        int recipeOffset = recipeRow * factors;
+        double dot = 0.0;
+        for (int k = 0; k < factors; k++) {
+            dot += userFactors[userOffset + k] * recipeFactors[recipeOffset + k];
+        }
+        return dot;
+    }
+
+    /**
+     * Writes the model as a binary snapshot.
+     * The snapshot is written to a temporary file first and moved into place, so readers
+     * never see a partially written file.
+     *
+     * @param path The snapshot file
+     * @throws IOException if the snapshot can't be written
+     */
+    public void writeTo(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(factors);
+            out.writeLong(trainedAt);
+            writeRows(out, userIds, userFactors);
+            writeRows(out, recipeIds, recipeFactors);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a model from a binary snapshot written by {@link #writeTo(Path)}.
+     * The file is memory-mapped and each section is bulk-copied into its array.
+     *
+     * @param path The snapshot file
+     * @return The model
+     * @throws IOException if the snapshot can't be read or has an unsupported format
+     */
+    public static FactorModel readFrom(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a factor model snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported factor model snapshot version " + version);
+            }
+
+            int factors = buffer.getInt();
+            if (factors <= 0 || factors > buffer.remaining() / Float.BYTES) {
+                throw new IOException("Corrupt factor model snapshot, invalid factor count " + factors + ": " + path);
+            }
+            long trainedAt = buffer.getLong();
+
+            long[] userIds = new long[readRowCount(buffer, factors, path)];
+            float[] userFactors = readRows(buffer, userIds, factors);
+            long[] recipeIds = new long[readRowCount(buffer, factors, path)];
+            float[] recipeFactors = readRows(buffer, recipeIds, factors);
+
+            return new FactorModel(factors, trainedAt, userIds, userFactors, recipeIds, recipeFactors);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated factor model snapshot: " + path, e);
+        }
+    }
+
+    private static void writeRows(DataOutputStream out, long[] ids, float[] rows) throws IOException {
+        out.writeInt(ids.length);
+        for (long id : ids) {
+            out.writeLong(id);
+        }
+        for (float value : rows) {
+            out.writeFloat(value);
+        }
+    }
+
+    /**
+     * Reads a row count and checks that the remaining snapshot can hold that many rows,
+     * so a corrupt count fails the read instead of allocating a huge array.
+     */
+    private static int readRowCount(ByteBuffer buffer, int factors, Path path) throws IOException {
+        int count = buffer.getInt();
+        long rowBytes = Long.BYTES + (long) factors * Float.BYTES;
+        if (count < 0 || count > buffer.remaining() / rowBytes) {
+            throw new IOException("Corrupt factor model snapshot, invalid row count " + count + ": " + path);
+        }
+        return count;
+    }
+
+    private static float[] readRows(ByteBuffer buffer, long[] ids, int factors) {
+        buffer.asLongBuffer().get(ids);
+        buffer.position(buffer.position() + ids.length * Long.BYTES);
+        float[] rows = new float[ids.length * factors];
+        buffer.asFloatBuffer().get(rows);
+        buffer.position(buffer.position() + rows.length * Float.BYTES);
+        return rows;
+    }
+}
@@ -0,0 +1,147 @@
+package com.thesis.receiptify.service.recommendation;
+
+import com.thesis.receiptify.repository.UserInteractionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds the current latent factor model used for collaborative recommendations.
+ * The model is retrained nightly with implicit-feedback ALS over all user interactions,
+ * persisted as a binary snapshot, and loaded from that snapshot at startup.
+ */
+@Component
+public class FactorModelStore {
+    private static final String SNAPSHOT_FILE = "factor-model.bin";
+
+    // Training hyperparameters
+    private static final int FACTORS = 32;
+    private static final int ITERATIONS = 10;
+    private static final double LAMBDA = 0.1;
+    private static final double ALPHA = 40.0;
+
+    private final UserInteractionRepository interactionRepository;
+    private final Path snapshotPath;
+
+    private volatile FactorModel model;
+
+    public FactorModelStore(UserInteractionRepository interactionRepository,
+                            @Value("${recommendation.model-dir:recommendation-model}") String modelDir) {
+        this.interactionRepository = interactionRepository;
+        this.snapshotPath = Path.of(modelDir).resolve(SNAPSHOT_FILE);
+    }
+
+    /**
+     * @return The current model, or null if no model has been trained or loaded yet
+     */
+    public FactorModel current() {
+        return model;
+    }
+
+    /**
+     * Loads the model from the snapshot on disk.
+     *
+     * @return true if a snapshot was loaded
+     */
+    public boolean loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return false;
+        }
+
+        try {
+            model = FactorModel.readFrom(snapshotPath);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to load factor model snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Trains the model in the background, used when no snapshot exists at startup.
+     */
+    @Async
+    public void trainInBackground() {
+        train();
+    }
+
+    /**
+     * Retrains the model from all user interactions and writes a new snapshot.
+     * Row solves run in parallel across all cores.
+     */
+    @Scheduled(cron = "0 0 4 * * *")
+    public synchronized void train() {
+        List<Object[]> cells = interactionRepository.findAllInteractionCells();
+
+        long[] cellUsers = new long[cells.size()];
+        long[] cellRecipes = new long[cells.size()];
+        float[] cellWeights = new float[cells.size()];
+        for (int i = 0; i < cells.size(); i++) {
+            Object[] cell = cells.get(i);
+            cellUsers[i] = (Long) cell[0];
+            cellRecipes[i] = (Long) cell[1];
+            cellWeights[i] = InteractionMatrix.interactionWeight((Integer) cell[2], (Boolean) cell[3]);
+        }
+
+        FactorModel trained = fit(cellUsers, cellRecipes, cellWeights);
+        if (trained == null) {
+            return; // Nothing to learn from yet
+        }
+        model = trained;
+
+        try {
+            trained.writeTo(snapshotPath);
+        } catch (IOException e) {
+            System.err.println("Failed to write factor model snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Trains a model on the given interaction cells with the production hyperparameters,
+     * without replacing the current model. Cells without a positive weight are ignored.
+     *
+     * @param cellUsers The user ID of each cell
+     * @param cellRecipes The recipe ID of each cell
+     * @param cellWeights The interaction weight of each cell
+     * @return The trained model, or null if no cell has a positive weight
+     */
+    public FactorModel fit(long[] cellUsers, long[] cellRecipes, float[] cellWeights) {
+        long[] users = new long[cellWeights.length];
+        long[] recipes = new long[cellWeights.length];
+        float[] weights = new float[cellWeights.length];
+        int count = 0;
+        for (int i = 0; i < cellWeights.length; i++) {
+            if (cellWeights[i] <= 0) {
+                continue; // Not a positive signal
+            }
+            users[count] = cellUsers[i];
+            recipes[count] = cellRecipes[i];
+            weights[count] = cellWeights[i];
+            count++;
+        }
+
+        if (count == 0) {
+            return null;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            AlsTrainer trainer = new AlsTrainer(FACTORS, ITERATIONS, LAMBDA, ALPHA);
+            return trainer.train(
+                    Arrays.copyOf(users, count),
+                    Arrays.copyOf(recipes, count),
+                    Arrays.copyOf(weights, count),
+                    pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.thesis.receiptify.service.recommendation;
+
+import com.thesis.receiptify.model.enums.IngredientType;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Dense ingredient co-occurrence matrix over all recipes, indexed by {@link IngredientType#ordinal()}.
+ * Cell (a, b) counts the recipes using both ingredient types, and the diagonal counts the
+ * recipes using each type. The matrix is maintained by {@link RecipeFeatureStore}, which applies
+ * the ingredient change of every published or removed recipe.
+ *
+ * Suggestions are scored with positive pointwise mutual information (PPMI), derived from the
+ * counts on first read after a change and shared until the next change:
+ * - pairings are the ingredients with the highest PPMI with an ingredient, i.e. used with it
+ *   far more often than chance;
+ * - substitutes are the ingredients of the same category whose PPMI rows are most similar,
+ *   i.e. used with the same other ingredients.
+ */
+@Component
+public class IngredientCooccurrenceMatrix {
+    private static final IngredientType[] TYPES = IngredientType.values();
+    private static final int SIZE = TYPES.length;
+
+    // Pairs seen together in fewer recipes are too noisy to suggest
+    private static final int MIN_SHARED_RECIPES = 2;
+
+    // Guarded by this
+    private final int[] counts = new int[SIZE * SIZE];
+    private int recipeCount;
+
+    // Derived from the counts, dropped on every change and rebuilt on the next read
+    private volatile Weights weights;
+
+    /**
+     * Removes all recipes from the matrix.
+     */
+    synchronized void clear() {
+        Arrays.fill(counts, 0);
+        recipeCount = 0;
+        weights = null;
+    }
+
+    /**
+     * Replaces the ingredients of one recipe.
+     *
+     * @param removedBits The recipe's previous ingredient bitmap, or null for a new recipe
+     * @param addedBits The recipe's new ingredient bitmap, or null for a removed recipe
+     */
+    synchronized void update(long[] removedBits, long[] addedBits) {
+        if (removedBits != null && addedBits != null && Arrays.equals(removedBits, addedBits)) {
+            return;
+        }
+        apply(removedBits, -1);
+        apply(addedBits, 1);
+        weights = null;
+    }
+
+    /**
+     * Finds the ingredients most often used together with an ingredient, beyond what their
+     * individual popularity explains.
+     *
+     * @param type The ingredient type
+     * @param limit The maximum number of ingredients to return
+     * @return The ordinals of the pairing ingredient types with their PPMI, best first
+     */
+    public TopK findPairings(IngredientType type, int limit) {
+        Weights current = weights();
+        int row = type.ordinal() * SIZE;
+
+        TopK best = new TopK(Math.min(limit, SIZE));
+        for (int other = 0; other < SIZE; other++) {
+            float ppmi = current.ppmi[row + other];
+            if (ppmi > 0 && current.counts[row + other] >= MIN_SHARED_RECIPES) {
+                best.offer(other, ppmi);
+            }
+        }
+        return best.sort();
+    }
+
+    /**
+     * Finds the ingredients of the same category used in the most similar contexts as an ingredient,
+     * by cosine similarity of their PPMI rows. The two ingredients' own pairing is left out, so
+     * ingredients that are usually used together don't score higher for it.
+     *
+     * @param type The ingredient type
+     * @param limit The maximum number of ingredients to return
+     * @return The ordinals of the substitute ingredient types with their similarity, best first
+     */
+    public TopK findSubstitutes(IngredientType type, int limit) {
+        Weights current = weights();
+        int ordinal = type.ordinal();
+        int row = ordinal * SIZE;
+
+        TopK best = new TopK(Math.min(limit, SIZE));
+        for (int other = 0; other < SIZE; other++) {
+            if (other == ordinal || !TYPES[other].getCategory().equals(type.getCategory())) {
+                continue;
+            }
+
+            int otherRow = other * SIZE;
+            double dot = 0.0;
+            for (int k = 0; k < SIZE; k++) {
+                dot += current.ppmi[row + k] * current.ppmi[otherRow + k];
+            }
+
+            // The diagonal is zero, so the pair's own weight only enters the norms
+            double pair = current.ppmi[row + other];
+            double norms = Math.sqrt(Math.max(0.0, current.squaredNorms[ordinal] - pair * pair) *
+                    Math.max(0.0, current.squaredNorms[other] - pair * pair));
+            if (dot > 0 && norms > 0) {
+                best.offer(other, dot / norms);
+            }
+        }
+        return best.sort();
+    }
+
+    /**
+     * @param a An ingredient type
+     * @param b Another ingredient type, or the same one for its own recipe count
+     * @return The number of recipes using both ingredient types
+     */
+    public int sharedRecipes(IngredientType a, IngredientType b) {
+        return weights().counts[a.ordinal() * SIZE + b.ordinal()];
+    }
+
+    private void apply(long[] bits, int delta) {
+        if (bits == null) {
+            return;
+        }
+
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        if (count == 0) {
+            return; // Recipes without ingredients don't take part
+        }
+
+        int[] ordinals = new int[count];
+        int size = 0;
+        for (int word = 0; word < bits.length; word++) {
+            long remaining = bits[word];
+            while (remaining != 0) {
+                ordinals[size++] = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+            }
+        }
+
+        recipeCount += delta;
+        for (int a : ordinals) {
+            int row = a * SIZE;
+            for (int b : ordinals) {
+                counts[row + b] += delta;
+            }
+        }
+    }
+
+    private Weights weights() {
+        Weights current = weights;
+        if (current == null) {
+            synchronized (this) {
+                current = weights;
+                if (current == null) {
+                    current = new Weights(counts.clone(), recipeCount);
+                    weights = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Immutable copy of the counts with the PPMI weights derived from them.
+     */
+    private static final class Weights {
+        final int[] counts;
+        final float[] ppmi = new float[SIZE * SIZE];
+        final double[] squaredNorms = new double[SIZE];
+
+        Weights(int[] counts, int recipeCount) {
+            this.counts = counts;
+
+            for (int a = 0; a < SIZE; a++) {
+                int aRecipes = counts[a * SIZE + a];
+                if (aRecipes == 0) {
+                    continue;
+                }
+                for (int b = 0; b < SIZE; b++) {
+                    int shared = counts[a * SIZE + b];
+                    if (a == b || shared == 0) {
+                        continue;
+                    }
+                    // log(P(a, b) / (P(a) * P(b)))
+                    double pmi = Math.log((double) shared * recipeCount / ((double) aRecipes * counts[b * SIZE + b]));
+                    if (pmi > 0) {
+                        float weight = (float) pmi;
+                        ppmi[a * SIZE + b] = weight;
+                        squaredNorms[a] += weight * weight;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,583 @@
+package com.thesis.receiptify.service.recommendation;
+
+import com.thesis.receiptify.repository.UserInteractionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide sparse user-recipe interaction matrix used by collaborative filtering.
+ * Users and recipes are mapped to dense ordinals and each user's interactions are stored
+ * in CSR form (row pointers, sorted recipe ordinals and weights in primitive arrays).
+ *
+ * Writes are copy-on-write: a changed row is kept as an override until enough rows have
+ * changed, at which point the overrides are folded into a new CSR snapshot. Readers never
+ * lock and never touch the database.
+ *
+ * The nearest neighbours of every user are maintained in a {@link UserNeighbourStore}, and their
+ * interacted-recipe sets are indexed in a {@link UserMinHashIndex}; both are kept in step with
+ * every load and write.
+ */
+@Component
+@RequiredArgsConstructor
+public class InteractionMatrix {
+    private static final int COMPACTION_THRESHOLD = 1024;
+
+    private final UserInteractionRepository interactionRepository;
+    private final UserNeighbourStore neighbourStore;
+    private final UserMinHashIndex minHashIndex;
+
+    private final Map<Long, Integer> userOrdinals = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> recipeOrdinals = new ConcurrentHashMap<>();
+    private volatile long[] userIds = new long[16];
+    private volatile long[] recipeIds = new long[16];
+    private volatile int userCount;
+    private volatile int recipeCount;
+
+    private volatile Csr csr = Csr.EMPTY;
+    private final Map<Integer, Row> updatedRows = new ConcurrentHashMap<>();
+
+    /**
+     * Callback receiving the interactions of a single matrix row.
+     */
+    @FunctionalInterface
+    public interface InteractionConsumer {
+        void accept(long recipeId, float weight);
+    }
+
+    /**
+     * Creates a matrix that isn't backed by the database and holds only the cells passed to {@link #load}.
+     * Used to replay recommendations against a historical slice of the interactions.
+     *
+     * @return An empty matrix with its own neighbour store and MinHash index
+     */
+    public static InteractionMatrix detached() {
+        return new InteractionMatrix(null, new UserNeighbourStore(),
+                new UserMinHashIndex(UserMinHashIndex.DEFAULT_BANDS, UserMinHashIndex.DEFAULT_ROWS_PER_BAND,
+                        UserMinHashIndex.DEFAULT_MAX_CANDIDATES));
+    }
+
+    /**
+     * @return The store holding the nearest neighbours of this matrix's users
+     */
+    public UserNeighbourStore neighbourStore() {
+        return neighbourStore;
+    }
+
+    /**
+     * @return The MinHash index over the interacted-recipe sets of this matrix's users
+     */
+    public UserMinHashIndex minHashIndex() {
+        return minHashIndex;
+    }
+
+    /**
+     * Computes the weight of a single interaction.
+     * Saved recipes count double, mirroring the interaction strength used for scoring.
+     *
+     * @param viewCount The number of times the user viewed the recipe
+     * @param saved Whether the user saved the recipe
+     * @return The interaction weight
+     */
+    public static float interactionWeight(Integer viewCount, Boolean saved) {
+        int views = viewCount != null ? viewCount : 0;
+        return views * (Boolean.TRUE.equals(saved) ? 2.0f : 1.0f);
+    }
+
+    /**
+     * Rebuilds the whole matrix from the persisted user interactions.
+     * Called once at startup; afterwards the matrix is kept current through {@link #record}.
+     */
+    public synchronized void rebuild() {
+        List<Object[]> cells = interactionRepository.findAllInteractionCells();
+
+        long[] userIds = new long[cells.size()];
+        long[] recipeIds = new long[cells.size()];
+        float[] weights = new float[cells.size()];
+        for (int i = 0; i < cells.size(); i++) {
+            Object[] cell = cells.get(i);
+            userIds[i] = (Long) cell[0];
+            recipeIds[i] = (Long) cell[1];
+            weights[i] = interactionWeight((Integer) cell[2], (Boolean) cell[3]);
+        }
+
+        load(userIds, recipeIds, weights);
+    }
+
+    /**
+     * Replaces the whole matrix with the given cells.
+     * Used by {@link #rebuild()} and when restoring the matrix from a snapshot.
+     *
+     * @param cellUserIds The user ID of each cell
+     * @param cellRecipeIds The recipe ID of each cell
+     * @param cellWeights The interaction weight of each cell
+     */
+    public synchronized void load(long[] cellUserIds, long[] cellRecipeIds, float[] cellWeights) {
+        // Pack each cell as (recipe ordinal << 32 | weight bits) so a row sorts by recipe ordinal
+        int[] cellUsers = new int[cellWeights.length];
+        long[] packed = new long[cellWeights.length];
+        for (int i = 0; i < cellWeights.length; i++) {
+            int recipe = recipeOrdinal(cellRecipeIds[i]);
+            cellUsers[i] = userOrdinal(cellUserIds[i]);
+            packed[i] = ((long) recipe << 32) | (Float.floatToIntBits(cellWeights[i]) & 0xFFFFFFFFL);
+        }
+
+        // Counting sort of the cells into rows
+        int users = userCount;
+        int[] offsets = new int[users + 1];
+        for (int user : cellUsers) {
+            offsets[user + 1]++;
+        }
+        for (int user = 0; user < users; user++) {
+            offsets[user + 1] += offsets[user];
+        }
+        long[] entries = new long[packed.length];
+        int[] fill = Arrays.copyOf(offsets, users);
+        for (int i = 0; i < packed.length; i++) {
+            entries[fill[cellUsers[i]]++] = packed[i];
+        }
+
+        int[] rowPtr = new int[users + 1];
+        int[] cols = new int[entries.length];
+        float[] weights = new float[entries.length];
+        int pos = 0;
+        for (int user = 0; user < users; user++) {
+            rowPtr[user] = pos;
+            Arrays.sort(entries, offsets[user], offsets[user + 1]);
+            for (int i = offsets[user]; i < offsets[user + 1]; i++) {
+                int recipe = (int) (entries[i] >>> 32);
+                float weight = Float.intBitsToFloat((int) entries[i]);
+                if (pos > rowPtr[user] && cols[pos - 1] == recipe) {
+                    // Duplicate (user, recipe) rows collapse into one entry
+                    weights[pos - 1] = Math.max(weights[pos - 1], weight);
+                    continue;
+                }
+                cols[pos] = recipe;
+                weights[pos] = weight;
+                pos++;
+            }
+        }
+        rowPtr[users] = pos;
+
+        csr = new Csr(users, rowPtr, Arrays.copyOf(cols, pos), Arrays.copyOf(weights, pos));
+        updatedRows.clear();
+        neighbourStore.rebuild(this);
+        minHashIndex.rebuild(this);
+    }
+
+    /**
+     * Applies all interactions changed since a point in time, and drops the users and recipes
+     * that no longer have any interactions, such as ones deleted since the snapshot was written.
+     * Used after restoring the matrix from a snapshot to catch up with later writes.
+     *
+     * @param since Interactions last touched at or after this time are re-read
+     * @return The number of interactions applied plus the number of users and recipes dropped
+     */
+    public int catchUp(LocalDateTime since) {
+        int changes = 0;
+
+        Set<Long> users = new HashSet<>(interactionRepository.findAllInteractingUserIds());
+        for (int user = 0; user < userCount; user++) {
+            long userId = userIds[user];
+            if (!users.contains(userId) && rowSize(user) > 0) {
+                removeUser(userId);
+                changes++;
+            }
+        }
+
+        Set<Long> recipes = new HashSet<>(interactionRepository.findAllInteractedRecipeIds());
+        for (Long recipeId : new ArrayList<>(recipeOrdinals.keySet())) {
+            if (!recipes.contains(recipeId)) {
+                removeRecipe(recipeId);
+                changes++;
+            }
+        }
+
+        List<Object[]> cells = interactionRepository.findInteractionCellsChangedSince(since);
+        for (Object[] cell : cells) {
+            record((Long) cell[0], (Long) cell[1], (Integer) cell[2], (Boolean) cell[3]);
+        }
+        return changes + cells.size();
+    }
+
+    /**
+     * Records the current state of a (user, recipe) interaction.
+     *
+     * @param userId The ID of the user
+     * @param recipeId The ID of the recipe
+     * @param viewCount The current view count of the interaction
+     * @param saved The current saved flag of the interaction
+     */
+    public synchronized void record(Long userId, Long recipeId, Integer viewCount, Boolean saved) {
+        int user = userOrdinal(userId);
+        int recipe = recipeOrdinal(recipeId);
+        float weight = interactionWeight(viewCount, saved);
+
+        Row current = row(user);
+        int index = Arrays.binarySearch(current.cols, recipe);
+
+        Row updated;
+        if (index >= 0) {
+            float[] weights = current.weights.clone();
+            weights[index] = weight;
+            updated = new Row(current.cols, weights);
+        } else {
+            int insertAt = -index - 1;
+            int[] cols = new int[current.cols.length + 1];
+            float[] weights = new float[current.weights.length + 1];
+            System.arraycopy(current.cols, 0, cols, 0, insertAt);
+            System.arraycopy(current.weights, 0, weights, 0, insertAt);
+            cols[insertAt] = recipe;
+            weights[insertAt] = weight;
+            System.arraycopy(current.cols, insertAt, cols, insertAt + 1, current.cols.length - insertAt);
+            System.arraycopy(current.weights, insertAt, weights, insertAt + 1, current.weights.length - insertAt);
+            updated = new Row(cols, weights);
+        }
+
+        updatedRows.put(user, updated);
+        if (index < 0) {
+            neighbourStore.add(user, recipeId);
+            minHashIndex.add(user, recipeId);
+        }
+
+        if (updatedRows.size() >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Removes all interactions of a user, such as after the user was deleted.
+     * The user keeps their ordinal with an empty row.
+     *
+     * @param userId The ID of the user
+     */
+    public synchronized void removeUser(Long userId) {
+        Integer user = userOrdinals.get(userId);
+        if (user == null) {
+            return;
+        }
+
+        long[] recipes = recipeIds;
+        for (int recipe : row(user).cols) {
+            neighbourStore.remove(user, recipes[recipe]);
+        }
+        updatedRows.put(user, Row.EMPTY);
+        minHashIndex.remove(user);
+
+        if (updatedRows.size() >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Removes all interactions with a recipe, such as after the recipe was deleted.
+     * Scans every row, so it's meant for deletions only.
+     *
+     * @param recipeId The ID of the recipe
+     */
+    public synchronized void removeRecipe(Long recipeId) {
+        Integer recipe = recipeOrdinals.get(recipeId);
+        if (recipe == null) {
+            return;
+        }
+
+        int users = userCount;
+        for (int user = 0; user < users; user++) {
+            if (!contains(user, recipe)) {
+                continue;
+            }
+
+            Row current = row(user);
+            int index = Arrays.binarySearch(current.cols, recipe);
+            int[] cols = new int[current.cols.length - 1];
+            float[] weights = new float[current.weights.length - 1];
+            System.arraycopy(current.cols, 0, cols, 0, index);
+            System.arraycopy(current.weights, 0, weights, 0, index);
+            System.arraycopy(current.cols, index + 1, cols, index, cols.length - index);
+            System.arraycopy(current.weights, index + 1, weights, index, weights.length - index);
+
+            updatedRows.put(user, new Row(cols, weights));
+            neighbourStore.remove(user, recipeId);
+            minHashIndex.reindex(user, this);
+        }
+
+        if (updatedRows.size() >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Looks up the ordinal of a user.
+     *
+     * @param userId The ID of the user
+     * @return The user's ordinal, or -1 if the user has no interactions
+     */
+    public int findUser(Long userId) {
+        Integer ordinal = userOrdinals.get(userId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * @return The number of user rows in the matrix
+     */
+    public int userCount() {
+        return userCount;
+    }
+
+    /**
+     * @param userOrdinal The ordinal of a user
+     * @return The ID of the user with that ordinal
+     */
+    public long userId(int userOrdinal) {
+        return userIds[userOrdinal];
+    }
+
+    /**
+     * @param userOrdinal The ordinal of a user
+     * @return The number of recipes the user has interacted with
+     */
+    public int rowSize(int userOrdinal) {
+        Row override = updatedRows.get(userOrdinal);
+        if (override != null) {
+            return override.cols.length;
+        }
+        Csr snapshot = csr;
+        return userOrdinal < snapshot.rows ? snapshot.rowPtr[userOrdinal + 1] - snapshot.rowPtr[userOrdinal] : 0;
+    }
+
+    /**
+     * Calculates the Jaccard similarity between the interacted recipe sets of two users.
+     * Runs as a merge over the two sorted rows without allocating.
+     *
+     * @param userA The ordinal of the first user
+     * @param userB The ordinal of the second user
+     * @return A similarity score between 0.0 (no similarity) and 1.0 (identical)
+     */
+    public double jaccard(int userA, int userB) {
+        Csr snapshot = csr;
+
+        Row overrideA = updatedRows.get(userA);
+        int[] colsA;
+        int fromA;
+        int toA;
+        if (overrideA != null) {
+            colsA = overrideA.cols;
+            fromA = 0;
+            toA = colsA.length;
+        } else if (userA < snapshot.rows) {
+            colsA = snapshot.cols;
+            fromA = snapshot.rowPtr[userA];
+            toA = snapshot.rowPtr[userA + 1];
+        } else {
+            return 0.0;
+        }
+
+        Row overrideB = updatedRows.get(userB);
+        int[] colsB;
+        int fromB;
+        int toB;
+        if (overrideB != null) {
+            colsB = overrideB.cols;
+            fromB = 0;
+            toB = colsB.length;
+        } else if (userB < snapshot.rows) {
+            colsB = snapshot.cols;
+            fromB = snapshot.rowPtr[userB];
+            toB = snapshot.rowPtr[userB + 1];
+        } else {
+            return 0.0;
+        }
+
+        int sizeA = toA - fromA;
+        int sizeB = toB - fromB;
+        if (sizeA == 0 && sizeB == 0) {
+            return 0.0;
+        }
+
+        int intersection = 0;
+        int i = fromA;
+        int j = fromB;
+        while (i < toA && j < toB) {
+            int a = colsA[i];
+            int b = colsB[j];
+            if (a == b) {
+                intersection++;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        return (double) intersection / (sizeA + sizeB - intersection);
+    }
+
+    /**
+     * Passes every interaction of a user to the given consumer.
+     *
+     * @param userOrdinal The ordinal of the user
+     * @param consumer Receives the recipe ID and interaction weight of each entry
+     */
+    public void forEachInteraction(int userOrdinal, InteractionConsumer consumer) {
+        long[] recipes = recipeIds;
+        Row override = updatedRows.get(userOrdinal);
+        if (override != null) {
+            for (int i = 0; i < override.cols.length; i++) {
+                consumer.accept(recipes[override.cols[i]], override.weights[i]);
+            }
+            return;
+        }
+
+        Csr snapshot = csr;
+        if (userOrdinal >= snapshot.rows) {
+            return;
+        }
+        for (int i = snapshot.rowPtr[userOrdinal]; i < snapshot.rowPtr[userOrdinal + 1]; i++) {
+            consumer.accept(recipes[snapshot.cols[i]], snapshot.weights[i]);
+        }
+    }
+
+    /**
+     * Folds the overridden rows into a fresh CSR snapshot.
+     */
+    private void compact() {
+        int users = userCount;
+        Csr snapshot = csr;
+
+        int nonZeros = 0;
+        for (int user = 0; user < users; user++) {
+            nonZeros += rowSize(user);
+        }
+
+        int[] rowPtr = new int[users + 1];
+        int[] cols = new int[nonZeros];
+        float[] weights = new float[nonZeros];
+
+        int pos = 0;
+        for (int user = 0; user < users; user++) {
+            rowPtr[user] = pos;
+            Row override = updatedRows.get(user);
+            if (override != null) {
+                System.arraycopy(override.cols, 0, cols, pos, override.cols.length);
+                System.arraycopy(override.weights, 0, weights, pos, override.weights.length);
+                pos += override.cols.length;
+            } else if (user < snapshot.rows) {
+                int from = snapshot.rowPtr[user];
+                int length = snapshot.rowPtr[user + 1] - from;
+                System.arraycopy(snapshot.cols, from, cols, pos, length);
+                System.arraycopy(snapshot.weights, from, weights, pos, length);
+                pos += length;
+            }
+        }
+        rowPtr[users] = pos;
+
+        // Publish the new snapshot before dropping overrides so readers always see every row
+        csr = new Csr(users, rowPtr, cols, weights);
+        updatedRows.clear();
+    }
+
+    /**
+     * Checks whether a user's current row holds a recipe, without copying the row.
+     */
+    private boolean contains(int userOrdinal, int recipeOrdinal) {
+        Row override = updatedRows.get(userOrdinal);
+        if (override != null) {
+            return Arrays.binarySearch(override.cols, recipeOrdinal) >= 0;
+        }
+        Csr snapshot = csr;
+        return userOrdinal < snapshot.rows &&
+                Arrays.binarySearch(snapshot.cols, snapshot.rowPtr[userOrdinal], snapshot.rowPtr[userOrdinal + 1],
+                        recipeOrdinal) >= 0;
+    }
+
+    /**
+     * Returns a user's current row, copying it out of the snapshot if it has not been overridden.
+     */
+    private Row row(int userOrdinal) {
+        Row override = updatedRows.get(userOrdinal);
+        if (override != null) {
+            return override;
+        }
+        Csr snapshot = csr;
+        if (userOrdinal >= snapshot.rows) {
+            return Row.EMPTY;
+        }
+        int from = snapshot.rowPtr[userOrdinal];
+        int to = snapshot.rowPtr[userOrdinal + 1];
+        return new Row(Arrays.copyOfRange(snapshot.cols, from, to), Arrays.copyOfRange(snapshot.weights, from, to));
+    }
+
+    private int userOrdinal(Long userId) {
+        Integer existing = userOrdinals.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = userCount;
+        if (ordinal == userIds.length) {
+            userIds = Arrays.copyOf(userIds, ordinal * 2);
+        }
+        userIds[ordinal] = userId;
+        userOrdinals.put(userId, ordinal);
+        userCount = ordinal + 1;
+        return ordinal;
+    }
+
+    private int recipeOrdinal(Long recipeId) {
+        Integer existing = recipeOrdinals.get(recipeId);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = recipeCount;
+        if (ordinal == recipeIds.length) {
+            recipeIds = Arrays.copyOf(recipeIds, ordinal * 2);
+        }
+        recipeIds[ordinal] = recipeId;
+        recipeOrdinals.put(recipeId, ordinal);
+        recipeCount = ordinal + 1;
+        return ordinal;
+    }
+
+    /**
+     * Immutable compressed sparse row snapshot.
+     */
+    private static final class Csr {
+        static final Csr EMPTY = new Csr(0, new int[]{0}, new int[0], new float[0]);
+
+        final int rows;
+        final int[] rowPtr;
+        final int[] cols;
+        final float[] weights;
+
+        Csr(int rows, int[] rowPtr, int[] cols, float[] weights) {
+            this.rows = rows;
+            this.rowPtr = rowPtr;
+            this.cols = cols;
+            this.weights = weights;
+        }
+    }
+
+    /**
+     * Immutable single row, used for rows changed since the last compaction.
+     */
+    private static final class Row {
+        static final Row EMPTY = new Row(new int[0], new float[0]);
+
+        final int[] cols;
+        final float[] weights;
+
+        Row(int[] cols, float[] weights) {
+            this.cols = cols;
+            this.weights = weights;
+        }
+    }
+}
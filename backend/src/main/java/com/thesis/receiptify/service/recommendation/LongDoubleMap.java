@@ -0,0 +1,227 @@
+package com.thesis.receiptify.service.recommendation;
+
+/**
+ * Open-addressing hash map from primitive long keys to primitive double values.
+ * Used to accumulate recommendation scores per recipe without boxing a {@code Long}
+ * and a {@code Double} for every scored candidate. Not thread-safe.
+ */
+public final class LongDoubleMap {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private double[] values;
+    private boolean[] used;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * Callback receiving the entries of the map.
+     */
+    @FunctionalInterface
+    public interface LongDoubleConsumer {
+        void accept(long key, double value);
+    }
+
+    public LongDoubleMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize The number of entries the map should hold without resizing
+     */
+    public LongDoubleMap(int expectedSize) {
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1));
+    }
+
+    /**
+     * @param key The key to look up
+     * @param defaultValue The value returned when the key is absent
+     * @return The value mapped to the key, or the default value
+     */
+    public double get(long key, double defaultValue) {
+        int slot = find(key);
+        return used[slot] ? values[slot] : defaultValue;
+    }
+
+    /**
+     * @param key The key to look up
+     * @return true if the key is mapped
+     */
+    public boolean containsKey(long key) {
+        return used[find(key)];
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous value.
+     *
+     * @param key The key
+     * @param value The value
+     */
+    public void put(long key, double value) {
+        int slot = find(key);
+        if (used[slot]) {
+            values[slot] = value;
+        } else {
+            insert(slot, key, value);
+        }
+    }
+
+    /**
+     * Adds a delta to the value of a key, treating an absent key as 0.
+     *
+     * @param key The key
+     * @param delta The amount to add
+     */
+    public void add(long key, double delta) {
+        int slot = find(key);
+        if (used[slot]) {
+            values[slot] += delta;
+        } else {
+            insert(slot, key, delta);
+        }
+    }
+
+    /**
+     * Maps a key to the larger of its current value and the given value.
+     *
+     * @param key The key
+     * @param value The candidate value
+     */
+    public void putMax(long key, double value) {
+        int slot = find(key);
+        if (used[slot]) {
+            values[slot] = Math.max(values[slot], value);
+        } else {
+            insert(slot, key, value);
+        }
+    }
+
+    /**
+     * Removes the mapping of a key, if any.
+     *
+     * @param key The key
+     */
+    public void remove(long key) {
+        int slot = find(key);
+        if (!used[slot]) {
+            return;
+        }
+
+        // Backward-shift deletion: move later entries of the probe chain into the gap, so lookups
+        // never stop early at it
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = mix(keys[next]) & mask;
+            // Move the entry unless its home slot lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        size--;
+    }
+
+    /**
+     * @return The number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the map has no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The largest value in the map, or 0.0 if the map is empty
+     */
+    public double maxValue() {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot] && values[slot] > max) {
+                max = values[slot];
+            }
+        }
+        return size == 0 ? 0.0 : max;
+    }
+
+    /**
+     * Multiplies every value by a factor.
+     *
+     * @param factor The factor
+     */
+    public void scale(double factor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                values[slot] *= factor;
+            }
+        }
+    }
+
+    /**
+     * Calls an action for every entry, in no particular order.
+     *
+     * @param action The action
+     */
+    public void forEach(LongDoubleConsumer action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int slot, long key, double value) {
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        if (++size > resizeAt) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        allocate(oldKeys.length << 1);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int target = find(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+                used[target] = true;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new double[capacity];
+        used = new boolean[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
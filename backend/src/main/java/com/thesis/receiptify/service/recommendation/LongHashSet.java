@@ -0,0 +1,55 @@
+package com.thesis.receiptify.service.recommendation;
+
+import java.util.Collection;
+
+/**
+ * Open-addressing hash set of primitive long values.
+ * Used for the recipe exclusion checks of the recommendation scorers, which run once
+ * per scored candidate. Not thread-safe for writes; safe to read concurrently once filled.
+ */
+public final class LongHashSet {
+    private final LongDoubleMap entries;
+
+    public LongHashSet() {
+        this.entries = new LongDoubleMap();
+    }
+
+    /**
+     * @param values The initial values
+     */
+    public LongHashSet(Collection<Long> values) {
+        this.entries = new LongDoubleMap(values.size());
+        for (Long value : values) {
+            add(value);
+        }
+    }
+
+    /**
+     * @param value The value to add
+     */
+    public void add(long value) {
+        entries.put(value, 0.0);
+    }
+
+    /**
+     * @param value The value to look up
+     * @return true if the set contains the value
+     */
+    public boolean contains(long value) {
+        return entries.containsKey(value);
+    }
+
+    /**
+     * @return The number of values
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return true if the set is empty
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+}
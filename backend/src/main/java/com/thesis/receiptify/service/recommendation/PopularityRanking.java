@@ -0,0 +1,177 @@
+package com.thesis.receiptify.service.recommendation;
+
+import com.thesis.receiptify.repository.RatingRepository;
+import com.thesis.receiptify.repository.UserInteractionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Precomputed popularity ranking used to recommend recipes to users without any interactions.
+ * Each recipe's popularity blends its Bayesian-averaged rating, which pulls recipes with few
+ * ratings towards the catalogue mean, with its total view count. The best recipes overall and
+ * per category and cuisine are kept in ranked buckets, so ranking for a new user only merges
+ * the buckets of their preferred categories and cuisines.
+ */
+@Component
+@RequiredArgsConstructor
+public class PopularityRanking {
+    // Number of ratings the prior mean counts as in the Bayesian average
+    private static final double PRIOR_RATINGS = 5.0;
+
+    // Weights of the rating and view components
+    private static final double RATING_WEIGHT = 0.7;
+    private static final double VIEW_WEIGHT = 0.3;
+
+    // Boost for each of category and cuisine matching the user's preferences
+    private static final double PREFERENCE_BOOST = 0.5;
+
+    private static final int BUCKET_SIZE = 100;
+
+    private final RatingRepository ratingRepository;
+    private final UserInteractionRepository interactionRepository;
+    private final RecipeFeatureStore featureStore;
+
+    private volatile Ranking ranking = new Ranking(new LongDoubleMap(), new long[0], Map.of(), Map.of());
+
+    /**
+     * Recomputes the popularity of every recipe from the rating and view totals.
+     * Runs every 15 minutes; popularity moves slowly, so slightly stale buckets are fine.
+     */
+    @Scheduled(fixedDelay = 900_000, initialDelay = 900_000)
+    public void rebuild() {
+        LongDoubleMap ratingCounts = new LongDoubleMap();
+        LongDoubleMap ratingSums = new LongDoubleMap();
+        double totalRatings = 0;
+        double totalStars = 0;
+        for (Object[] row : ratingRepository.findRatingTotalsByRecipe()) {
+            long recipeId = (Long) row[0];
+            double count = ((Number) row[1]).doubleValue();
+            double stars = ((Number) row[2]).doubleValue();
+            ratingCounts.put(recipeId, count);
+            ratingSums.put(recipeId, stars);
+            totalRatings += count;
+            totalStars += stars;
+        }
+        double priorMean = totalRatings > 0 ? totalStars / totalRatings : 0.0;
+
+        LongDoubleMap views = new LongDoubleMap();
+        for (Object[] row : interactionRepository.findViewTotalsByRecipe()) {
+            if (row[1] != null) {
+                views.put((Long) row[0], Math.log1p(((Number) row[1]).doubleValue()));
+            }
+        }
+        double maxViews = Math.max(views.maxValue(), 1e-9);
+
+        LongDoubleMap popularity = new LongDoubleMap(featureStore.size());
+        TopK overall = new TopK(BUCKET_SIZE);
+        Map<Integer, TopK> categoryBuckets = new HashMap<>();
+        Map<Integer, TopK> cuisineBuckets = new HashMap<>();
+
+        for (RecipeFeatures recipe : featureStore.all()) {
+            long recipeId = recipe.getRecipeId();
+            double ratingCount = ratingCounts.get(recipeId, 0.0);
+            double bayesianRating = (PRIOR_RATINGS * priorMean + ratingSums.get(recipeId, 0.0))
+                    / (PRIOR_RATINGS + ratingCount);
+
+            double score = RATING_WEIGHT * (bayesianRating / 5.0) + VIEW_WEIGHT * (views.get(recipeId, 0.0) / maxViews);
+            if (score <= 0) {
+                continue; // Never rated nor viewed
+            }
+
+            popularity.put(recipeId, score);
+            overall.offer(recipeId, score);
+            if (recipe.getCategoryCode() != RecipeFeatures.NO_CODE) {
+                categoryBuckets.computeIfAbsent(recipe.getCategoryCode(), code -> new TopK(BUCKET_SIZE))
+                        .offer(recipeId, score);
+            }
+            if (recipe.getCuisineCode() != RecipeFeatures.NO_CODE) {
+                cuisineBuckets.computeIfAbsent(recipe.getCuisineCode(), code -> new TopK(BUCKET_SIZE))
+                        .offer(recipeId, score);
+            }
+        }
+
+        ranking = new Ranking(popularity, ids(overall), toIds(categoryBuckets), toIds(cuisineBuckets));
+    }
+
+    /**
+     * Ranks the most popular recipes for a user without interactions.
+     * Recipes in the user's preferred categories and cuisines are boosted, and recipes with
+     * disliked ingredients are left out. Overall popular recipes fill any remaining places.
+     *
+     * @param preferences The user's preference vector
+     * @param limit The maximum number of recipes to return
+     * @return The top recipe IDs with their scores, best first
+     */
+    public TopK rank(UserPreferenceVector preferences, int limit) {
+        Ranking current = ranking;
+        LongDoubleMap candidates = new LongDoubleMap();
+
+        for (int categoryCode : preferences.getCategoryCodes()) {
+            addCandidates(current, current.byCategory.get(categoryCode), preferences, candidates);
+        }
+        for (int cuisineCode : preferences.getCuisineCodes()) {
+            addCandidates(current, current.byCuisine.get(cuisineCode), preferences, candidates);
+        }
+        addCandidates(current, current.overall, preferences, candidates);
+
+        return TopK.of(limit, candidates);
+    }
+
+    private void addCandidates(Ranking current, long[] bucket, UserPreferenceVector preferences,
+                               LongDoubleMap candidates) {
+        if (bucket == null) {
+            return;
+        }
+
+        for (long recipeId : bucket) {
+            RecipeFeatures recipe = featureStore.get(recipeId);
+            if (recipe == null || candidates.containsKey(recipeId)) {
+                continue; // Deleted since the last rebuild, or already scored
+            }
+            if (recipe.countShared(preferences.getDislikedBits()) > 0) {
+                continue;
+            }
+
+            int matches = (preferences.prefersCategory(recipe.getCategoryCode()) ? 1 : 0)
+                    + (preferences.prefersCuisine(recipe.getCuisineCode()) ? 1 : 0);
+            candidates.put(recipeId, current.popularity.get(recipeId, 0.0) * (1.0 + PREFERENCE_BOOST * matches));
+        }
+    }
+
+    private static Map<Integer, long[]> toIds(Map<Integer, TopK> buckets) {
+        Map<Integer, long[]> ids = new HashMap<>();
+        buckets.forEach((code, bucket) -> ids.put(code, ids(bucket)));
+        return ids;
+    }
+
+    private static long[] ids(TopK bucket) {
+        bucket.sort();
+        long[] ids = new long[bucket.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = bucket.id(i);
+        }
+        return ids;
+    }
+
+    /**
+     * Immutable result of a rebuild, swapped in atomically.
+     */
+    private static final class Ranking {
+        final LongDoubleMap popularity;
+        final long[] overall;
+        final Map<Integer, long[]> byCategory;
+        final Map<Integer, long[]> byCuisine;
+
+        Ranking(LongDoubleMap popularity, long[] overall, Map<Integer, long[]> byCategory,
+                Map<Integer, long[]> byCuisine) {
+            this.popularity = popularity;
+            this.overall = overall;
+            this.byCategory = byCategory;
+            this.byCuisine = byCuisine;
+        }
+    }
+}
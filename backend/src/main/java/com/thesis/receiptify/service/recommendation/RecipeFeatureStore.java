@@ -0,0 +1,413 @@
+package com.thesis.receiptify.service.recommendation;
+
+import com.thesis.receiptify.model.Ingredient;
+import com.thesis.receiptify.model.Profile;
+import com.thesis.receiptify.model.Recipe;
+import com.thesis.receiptify.model.enums.IngredientType;
+import com.thesis.receiptify.repository.IngredientRepository;
+import com.thesis.receiptify.repository.RecipeRepository;
+import com.thesis.receiptify.service.SeasonalityService;
+import com.thesis.receiptify.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide store of {@link RecipeFeatures} for every recipe in the catalogue.
+ * Loaded once at startup from two projection queries and kept current by the recipe
+ * write paths, so the similarity and preference scorers never load recipe entities.
+ *
+ * Also maintains an inverted index from ingredient type, category and cuisine to the
+ * recipes having them, used to generate candidates that share at least one feature
+ * with a seed recipe, and keeps the {@link IngredientCooccurrenceMatrix} in step with
+ * every recipe change.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeFeatureStore {
+    private static final Month[] MONTHS = Month.values();
+    private static final int CATCH_UP_BATCH_SIZE = 500;
+
+    private final RecipeRepository recipeRepository;
+    private final IngredientRepository ingredientRepository;
+    private final SeasonalityService seasonalityService;
+    private final IngredientCooccurrenceMatrix cooccurrenceMatrix;
+
+    private final Map<Long, RecipeFeatures> features = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Long>> recipesByIngredient = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Long>> recipesByCategory = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Long>> recipesByCuisine = new ConcurrentHashMap<>();
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary cuisines = new Dictionary();
+    private final Dictionary difficulties = new Dictionary();
+
+    // Column copy of the store, dropped on every change and rebuilt on the next read
+    private volatile CatalogueColumns columns;
+
+    /**
+     * Rebuilds the whole store from the database.
+     * Called once at startup; afterwards the store is kept current through {@link #refresh} and {@link #remove}.
+     */
+    public synchronized void rebuild() {
+        Set<Long> loaded = load(recipeRepository.findAllFeatureRows(),
+                ingredientRepository.findAllRecipeIngredientTypes());
+
+        for (Long recipeId : new ArrayList<>(features.keySet())) {
+            if (!loaded.contains(recipeId)) {
+                unpublish(recipeId);
+            }
+        }
+    }
+
+    /**
+     * Replaces the whole store with features restored from a snapshot.
+     * The dictionaries are restored first so the codes in the features keep their meaning.
+     *
+     * @param categoryValues The category of each code, in code order
+     * @param cuisineValues The cuisine of each code, in code order
+     * @param difficultyValues The difficulty of each code, in code order
+     * @param restored The features of all recipes at snapshot time
+     */
+    public synchronized void restore(List<String> categoryValues, List<String> cuisineValues,
+                                     List<String> difficultyValues, Collection<RecipeFeatures> restored) {
+        features.clear();
+        columns = null;
+        cooccurrenceMatrix.clear();
+        recipesByIngredient.clear();
+        recipesByCategory.clear();
+        recipesByCuisine.clear();
+        categories.restore(categoryValues);
+        cuisines.restore(cuisineValues);
+        difficulties.restore(difficultyValues);
+
+        for (RecipeFeatures recipeFeatures : restored) {
+            publish(recipeFeatures);
+        }
+    }
+
+    /**
+     * Brings a restored store up to date with the database.
+     * Recipes created or updated since the given time, and recipes missing from the store,
+     * are reloaded; recipes no longer in the database are dropped.
+     *
+     * @param since Recipes created or updated at or after this time are reloaded
+     * @return The number of recipes reloaded or dropped
+     */
+    public synchronized int catchUp(LocalDateTime since) {
+        Set<Long> existing = new HashSet<>(recipeRepository.findAllIds());
+
+        int changes = 0;
+        for (Long recipeId : new ArrayList<>(features.keySet())) {
+            if (!existing.contains(recipeId)) {
+                unpublish(recipeId);
+                changes++;
+            }
+        }
+
+        Set<Long> stale = new HashSet<>(recipeRepository.findIdsChangedSince(since));
+        for (Long recipeId : existing) {
+            if (!features.containsKey(recipeId)) {
+                stale.add(recipeId);
+            }
+        }
+
+        List<Long> staleIds = new ArrayList<>(stale);
+        for (int from = 0; from < staleIds.size(); from += CATCH_UP_BATCH_SIZE) {
+            List<Long> batch = staleIds.subList(from, Math.min(from + CATCH_UP_BATCH_SIZE, staleIds.size()));
+            changes += load(recipeRepository.findFeatureRowsByIdIn(batch),
+                    ingredientRepository.findRecipeIngredientTypesByRecipeIdIn(batch)).size();
+        }
+        return changes;
+    }
+
+    /**
+     * Builds and publishes the features of the recipes in a set of projection rows.
+     *
+     * @param featureRows Rows of (id, category, cuisine, difficulty, prepTime)
+     * @param ingredientRows Rows of (recipe id, ingredient type)
+     * @return The IDs of the recipes published
+     */
+    private Set<Long> load(List<Object[]> featureRows, List<Object[]> ingredientRows) {
+        Map<Long, List<IngredientType>> ingredientTypes = new HashMap<>();
+        for (Object[] row : ingredientRows) {
+            ingredientTypes.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((IngredientType) row[1]);
+        }
+
+        Set<Long> loaded = new HashSet<>();
+        for (Object[] row : featureRows) {
+            Long recipeId = (Long) row[0];
+            publish(build(recipeId, (String) row[1], (String) row[2], (String) row[3],
+                    (Integer) row[4], ingredientTypes.getOrDefault(recipeId, List.of())));
+            loaded.add(recipeId);
+        }
+        return loaded;
+    }
+
+    /**
+     * Recomputes the features of a created or updated recipe.
+     * The features are computed immediately, while the recipe's ingredients are loaded,
+     * and published once the surrounding transaction commits.
+     *
+     * @param recipe The saved recipe
+     */
+    public void refresh(Recipe recipe) {
+        List<IngredientType> types = new ArrayList<>();
+        if (recipe.getIngredients() != null) {
+            for (Ingredient ingredient : recipe.getIngredients()) {
+                types.add(ingredient.getType());
+            }
+        }
+
+        RecipeFeatures updated = build(recipe.getId(), recipe.getCategory(), recipe.getCuisine(),
+                recipe.getDifficulty(), recipe.getPrepTime(), types);
+        TransactionUtils.afterCommit(() -> publish(updated));
+    }
+
+    /**
+     * Drops a deleted recipe from the store once the surrounding transaction commits.
+     *
+     * @param recipeId The ID of the deleted recipe
+     */
+    public void remove(Long recipeId) {
+        TransactionUtils.afterCommit(() -> unpublish(recipeId));
+    }
+
+    /**
+     * @param recipeId The ID of a recipe
+     * @return The features of the recipe, or null if the recipe isn't in the store
+     */
+    public RecipeFeatures get(Long recipeId) {
+        return features.get(recipeId);
+    }
+
+    /**
+     * @return A live view of the features of all recipes
+     */
+    public Collection<RecipeFeatures> all() {
+        return features.values();
+    }
+
+    /**
+     * Gets the features of all recipes laid out in columns, for scoring the whole catalogue at once.
+     * The columns are built on first use after a change and shared until the next change.
+     *
+     * @return The current columns
+     */
+    public CatalogueColumns columns() {
+        CatalogueColumns current = columns;
+        if (current == null) {
+            synchronized (this) {
+                current = columns;
+                if (current == null) {
+                    current = CatalogueColumns.of(List.copyOf(features.values()));
+                    columns = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Collects the recipes sharing at least one ingredient type, the category or the cuisine
+     * with a seed recipe. Recipes outside this set have a similarity of zero to the seed.
+     *
+     * @param seed The features of the seed recipe
+     * @return The IDs of the candidate recipes, excluding the seed itself
+     */
+    public Set<Long> findCandidates(RecipeFeatures seed) {
+        Set<Long> candidates = new HashSet<>();
+
+        long[] bits = seed.getIngredientBits();
+        for (int word = 0; word < bits.length; word++) {
+            long remaining = bits[word];
+            while (remaining != 0) {
+                int ordinal = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                candidates.addAll(recipesByIngredient.getOrDefault(ordinal, Set.of()));
+                remaining &= remaining - 1;
+            }
+        }
+        if (seed.getCategoryCode() != RecipeFeatures.NO_CODE) {
+            candidates.addAll(recipesByCategory.getOrDefault(seed.getCategoryCode(), Set.of()));
+        }
+        if (seed.getCuisineCode() != RecipeFeatures.NO_CODE) {
+            candidates.addAll(recipesByCuisine.getOrDefault(seed.getCuisineCode(), Set.of()));
+        }
+
+        candidates.remove(seed.getRecipeId());
+        return candidates;
+    }
+
+    /**
+     * @return The number of recipes in the store
+     */
+    public int size() {
+        return features.size();
+    }
+
+    /**
+     * @return The category of each code, in code order
+     */
+    public List<String> categoryValues() {
+        return categories.values();
+    }
+
+    /**
+     * @return The cuisine of each code, in code order
+     */
+    public List<String> cuisineValues() {
+        return cuisines.values();
+    }
+
+    /**
+     * @return The difficulty of each code, in code order
+     */
+    public List<String> difficultyValues() {
+        return difficulties.values();
+    }
+
+    /**
+     * Translates a user's preferences into the codes used by this store.
+     * Categories and cuisines no recipe uses can't match anything and are left out.
+     *
+     * @param user The user profile with preferences
+     * @return The user's preference vector
+     */
+    public UserPreferenceVector preferencesOf(Profile user) {
+        return new UserPreferenceVector(
+                categories.lookupAll(user.getPreferredCategories()),
+                cuisines.lookupAll(user.getPreferredCuisines()),
+                RecipeFeatures.toBits(nullToEmpty(user.getFavoriteIngredients())),
+                RecipeFeatures.toBits(nullToEmpty(user.getDislikedIngredients())),
+                difficulties.lookup(user.getDifficultyPreference()),
+                user.getMaxPrepTime() != null ? user.getMaxPrepTime() : RecipeFeatures.NO_CODE,
+                Boolean.TRUE.equals(user.getPreferSeasonalRecipes()));
+    }
+
+    private synchronized void publish(RecipeFeatures recipeFeatures) {
+        RecipeFeatures previous = features.put(recipeFeatures.getRecipeId(), recipeFeatures);
+        columns = null;
+        if (previous != null) {
+            updatePostings(previous, false);
+        }
+        updatePostings(recipeFeatures, true);
+        cooccurrenceMatrix.update(previous != null ? previous.getIngredientBits() : null,
+                recipeFeatures.getIngredientBits());
+    }
+
+    private synchronized void unpublish(Long recipeId) {
+        RecipeFeatures previous = features.remove(recipeId);
+        if (previous != null) {
+            columns = null;
+            updatePostings(previous, false);
+            cooccurrenceMatrix.update(previous.getIngredientBits(), null);
+        }
+    }
+
+    /**
+     * Adds a recipe to, or removes it from, the posting lists of all its features.
+     *
+     * @param recipeFeatures The features of the recipe
+     * @param add true to add the recipe, false to remove it
+     */
+    private void updatePostings(RecipeFeatures recipeFeatures, boolean add) {
+        long[] bits = recipeFeatures.getIngredientBits();
+        for (int word = 0; word < bits.length; word++) {
+            long remaining = bits[word];
+            while (remaining != 0) {
+                int ordinal = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                updatePosting(recipesByIngredient, ordinal, recipeFeatures.getRecipeId(), add);
+                remaining &= remaining - 1;
+            }
+        }
+        updatePosting(recipesByCategory, recipeFeatures.getCategoryCode(), recipeFeatures.getRecipeId(), add);
+        updatePosting(recipesByCuisine, recipeFeatures.getCuisineCode(), recipeFeatures.getRecipeId(), add);
+    }
+
+    private static void updatePosting(Map<Integer, Set<Long>> postings, int key, long recipeId, boolean add) {
+        if (key == RecipeFeatures.NO_CODE) {
+            return;
+        }
+        if (add) {
+            postings.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(recipeId);
+        } else {
+            Set<Long> posting = postings.get(key);
+            if (posting != null) {
+                posting.remove(recipeId);
+            }
+        }
+    }
+
+    private RecipeFeatures build(Long recipeId, String category, String cuisine, String difficulty,
+                                 Integer prepTime, List<IngredientType> types) {
+        byte[] seasonalScores = new byte[MONTHS.length];
+        for (Month month : MONTHS) {
+            seasonalScores[month.ordinal()] = (byte) seasonalityService.calculateSeasonalScore(types, month);
+        }
+
+        return new RecipeFeatures(
+                recipeId,
+                RecipeFeatures.toBits(types),
+                categories.intern(category),
+                cuisines.intern(cuisine),
+                difficulties.intern(difficulty),
+                prepTime != null ? prepTime : RecipeFeatures.NO_CODE,
+                seasonalScores);
+    }
+
+    private static <T> Collection<T> nullToEmpty(Collection<T> values) {
+        return values != null ? values : List.of();
+    }
+
+    /**
+     * Maps the distinct values of a string attribute to small integer codes.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private final AtomicInteger nextCode = new AtomicInteger();
+
+        int intern(String value) {
+            if (value == null) {
+                return RecipeFeatures.NO_CODE;
+            }
+            return codes.computeIfAbsent(value, v -> nextCode.getAndIncrement());
+        }
+
+        int lookup(String value) {
+            if (value == null) {
+                return RecipeFeatures.NO_CODE;
+            }
+            return codes.getOrDefault(value, RecipeFeatures.NO_CODE);
+        }
+
+        int[] lookupAll(Collection<String> values) {
+            if (values == null) {
+                return new int[0];
+            }
+            return values.stream()
+                    .mapToInt(this::lookup)
+                    .filter(code -> code != RecipeFeatures.NO_CODE)
+                    .toArray();
+        }
+
+        List<String> values() {
+            String[] values = new String[nextCode.get()];
+            codes.forEach((value, code) -> values[code] = value);
+            return Arrays.asList(values);
+        }
+
+        void restore(List<String> values) {
+            codes.clear();
+            for (int code = 0; code < values.size(); code++) {
+                if (values.get(code) != null) {
+                    codes.put(values.get(code), code);
+                }
+            }
+            nextCode.set(values.size());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.thesis.receiptify.service.recommendation;
+
+import com.thesis.receiptify.model.enums.IngredientType;
+import lombok.Getter;
+
+import java.time.Month;
+import java.util.Collection;
+
+/**
+ * Compact, immutable feature vector of a recipe used by the recommendation scorers.
+ * Ingredients are held as a bitmap over {@link IngredientType} ordinals and the
+ * category, cuisine and difficulty strings as interned integer codes.
+ */
+@Getter
+public final class RecipeFeatures {
+    /**
+     * Code used for a missing category, cuisine or difficulty, and for a missing prep time.
+     */
+    public static final int NO_CODE = -1;
+
+    /**
+     * Number of 64-bit words needed to hold one bit per ingredient type.
+     */
+    public static final int INGREDIENT_WORDS = (IngredientType.values().length + 63) >>> 6;
+
+    private final long recipeId;
+    private final long[] ingredientBits;
+    private final int ingredientCount;
+    private final int categoryCode;
+    private final int cuisineCode;
+    private final int difficultyCode;
+    private final int prepTime;
+    private final byte[] seasonalScores;
+
+    public RecipeFeatures(long recipeId, long[] ingredientBits, int categoryCode, int cuisineCode,
+                          int difficultyCode, int prepTime, byte[] seasonalScores) {
+        this.recipeId = recipeId;
+        this.ingredientBits = ingredientBits;
+        this.ingredientCount = popCount(ingredientBits);
+        this.categoryCode = categoryCode;
+        this.cuisineCode = cuisineCode;
+        this.difficultyCode = difficultyCode;
+        this.prepTime = prepTime;
+        this.seasonalScores = seasonalScores;
+    }
+
+    /**
+     * Builds an ingredient bitmap from a collection of ingredient types.
+     *
+     * @param types The ingredient types
+     * @return A bitmap with one bit set per distinct ingredient type
+     */
+    public static long[] toBits(Collection<IngredientType> types) {
+        long[] bits = new long[INGREDIENT_WORDS];
+        for (IngredientType type : types) {
+            if (type != null) {
+                bits[type.ordinal() >>> 6] |= 1L << type.ordinal();
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Counts the ingredient types this recipe shares with a bitmap.
+     *
+     * @param bits An ingredient bitmap
+     * @return popcount(ingredients AND bits)
+     */
+    public int countShared(long[] bits) {
+        int shared = 0;
+        for (int i = 0; i < INGREDIENT_WORDS; i++) {
+            shared += Long.bitCount(ingredientBits[i] & bits[i]);
+        }
+        return shared;
+    }
+
+    /**
+     * Calculates the Jaccard similarity of the ingredient sets of two recipes.
+     *
+     * @param other The recipe to compare with
+     * @return popcount(and) / popcount(or), or 0.0 if both recipes have no ingredients
+     */
+    public double ingredientJaccard(RecipeFeatures other) {
+        int union = ingredientCount + other.ingredientCount;
+        if (union == 0) {
+            return 0.0;
+        }
+        int intersection = countShared(other.ingredientBits);
+        return (double) intersection / (union - intersection);
+    }
+
+    /**
+     * @param month The month to look up
+     * @return The precomputed seasonality score (0-100) of the recipe for that month
+     */
+    public int seasonalScore(Month month) {
+        return seasonalScores[month.ordinal()];
+    }
+
+    private static int popCount(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,53 @@
+package com.thesis.receiptify.service.recommendation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.thesis.receiptify.repository.UserRecommendationRepository;
+import com.thesis.receiptify.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Evicts the cached and precomputed recommendations of a single user when the inputs of
+ * their recommendations change. Cache keys are (username, limit, includePrevious), so all
+ * entries of the user are found by scanning the keys of the underlying Caffeine cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecommendationCacheEvictor {
+    /**
+     * Name of the per-user recommendations cache.
+     */
+    public static final String CACHE_NAME = "recommendations";
+
+    private final CacheManager cacheManager;
+    private final UserRecommendationRepository userRecommendationRepository;
+
+    /**
+     * Evicts all recommendations of a user. The rows written by the recommendation batch job
+     * are deleted in the surrounding transaction, so they disappear exactly when the change
+     * that invalidated them commits. The cache entries are evicted once the transaction has
+     * committed, so a concurrent request can't cache results computed from the old state
+     * after the eviction.
+     *
+     * @param userId The ID of the user
+     * @param username The username of the user
+     */
+    public void evictUser(Long userId, String username) {
+        userRecommendationRepository.deleteByUserId(userId);
+        TransactionUtils.afterCommit(() -> evictNow(username));
+    }
+
+    private void evictNow(String username) {
+        if (!(cacheManager.getCache(CACHE_NAME) instanceof CaffeineCache cache)) {
+            return;
+        }
+
+        Cache<Object, Object> nativeCache = cache.getNativeCache();
+        nativeCache.asMap().keySet().removeIf(key ->
+                key instanceof List<?> parts && !parts.isEmpty() && username.equals(parts.get(0)));
+    }
+}
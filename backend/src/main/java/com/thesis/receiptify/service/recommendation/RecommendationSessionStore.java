@@ -0,0 +1,164 @@
+package com.thesis.receiptify.service.recommendation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Short-lived store of materialized recommendation rankings, so further pages of a user's
+ * recommendations are sliced from the ranking computed for the first page instead of being
+ * recomputed. Each ranking is addressed by a random session ID; clients only ever see opaque
+ * cursor tokens combining that ID with a position in the ranking.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecommendationSessionStore {
+    /**
+     * Name of the cache holding the rankings.
+     */
+    public static final String CACHE_NAME = "recommendationSessions";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final CacheManager cacheManager;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * A materialized ranking of recommended recipes and the request it was computed for.
+     */
+    public static final class RankedList {
+        private final String username;
+        private final boolean includePrevious;
+        private final long[] recipeIds;
+
+        RankedList(String username, boolean includePrevious, long[] recipeIds) {
+            this.username = username;
+            this.includePrevious = includePrevious;
+            this.recipeIds = recipeIds;
+        }
+
+        /**
+         * @return The number of recipes in the ranking
+         */
+        public int size() {
+            return recipeIds.length;
+        }
+
+        /**
+         * @param from The first position, inclusive
+         * @param to The last position, exclusive
+         * @return The recipe IDs at the positions, best first
+         */
+        public List<Long> slice(int from, int to) {
+            Long[] slice = new Long[Math.max(0, Math.min(to, recipeIds.length) - from)];
+            for (int i = 0; i < slice.length; i++) {
+                slice[i] = recipeIds[from + i];
+            }
+            return List.of(slice);
+        }
+    }
+
+    /**
+     * A position in a stored ranking, decoded from a cursor token.
+     */
+    public static final class Cursor {
+        private final String sessionId;
+        private final RankedList ranking;
+        private final int offset;
+
+        Cursor(String sessionId, RankedList ranking, int offset) {
+            this.sessionId = sessionId;
+            this.ranking = ranking;
+            this.offset = offset;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public RankedList getRanking() {
+            return ranking;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+    }
+
+    /**
+     * Stores a ranking for later pages.
+     *
+     * @param username The user the ranking was computed for
+     * @param includePrevious Whether the ranking includes previously interacted recipes
+     * @param recipeIds The ranked recipe IDs, best first
+     * @return The start of the new session's ranking
+     */
+    public Cursor store(String username, boolean includePrevious, List<Long> recipeIds) {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String sessionId = ENCODER.encodeToString(bytes);
+
+        RankedList ranking = new RankedList(username, includePrevious,
+                recipeIds.stream().mapToLong(Long::longValue).toArray());
+        cache().put(sessionId, ranking);
+        return new Cursor(sessionId, ranking, 0);
+    }
+
+    /**
+     * Builds the cursor token pointing at a position of a session's ranking.
+     *
+     * @param sessionId The ID of the session
+     * @param offset The position in the ranking
+     * @return The opaque cursor token
+     */
+    public String cursor(String sessionId, int offset) {
+        return ENCODER.encodeToString((sessionId + ':' + offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Resolves a cursor token of a user.
+     *
+     * @param token The cursor token
+     * @param username The user requesting the page
+     * @param includePrevious Whether the request includes previously interacted recipes
+     * @return The position the cursor points at
+     * @throws IllegalArgumentException if the token is malformed, has expired, or belongs to another request
+     */
+    public Cursor resolve(String token, String username, boolean includePrevious) {
+        String decoded;
+        try {
+            decoded = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        int separator = decoded.lastIndexOf(':');
+        int offset;
+        try {
+            offset = separator > 0 ? Integer.parseInt(decoded.substring(separator + 1)) : -1;
+        } catch (NumberFormatException e) {
+            offset = -1;
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        String sessionId = decoded.substring(0, separator);
+        RankedList ranking = cache().get(sessionId, RankedList.class);
+        if (ranking == null || !ranking.username.equals(username) || ranking.includePrevious != includePrevious) {
+            throw new IllegalArgumentException("Cursor has expired, request the first page again");
+        }
+        return new Cursor(sessionId, ranking, offset);
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+}
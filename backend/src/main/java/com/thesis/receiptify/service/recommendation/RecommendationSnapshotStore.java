@@ -0,0 +1,343 @@
+package com.thesis.receiptify.service.recommendation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persists the in-memory recommendation state (recipe features and the interaction matrix)
+ * as a versioned binary snapshot, so a new instance can start serving without reloading
+ * the whole catalogue and interaction history from the database.
+ *
+ * The snapshot records a high-water mark taken before the state was read. At startup the
+ * file is memory-mapped, its sections are bulk-copied into the stores, and only recipes
+ * and interactions changed since the high-water mark are re-read from the database.
+ *
+ * Sections are laid out column by column (all IDs, then all category codes, and so on)
+ * so each one is read with a single bulk copy out of the mapping.
+ */
+@Component
+public class RecommendationSnapshotStore {
+    private static final String SNAPSHOT_FILE = "recommendation-state.bin";
+    private static final int MAGIC = 0x52534E50; // "RSNP"
+    private static final int VERSION = 1;
+    private static final int MONTHS = Month.values().length;
+
+    /**
+     * Rows written shortly before the high-water mark may commit after it; catching up
+     * from slightly earlier makes sure they are picked up.
+     */
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(5);
+
+    private final RecipeFeatureStore featureStore;
+    private final InteractionMatrix interactionMatrix;
+    private final Path snapshotPath;
+
+    public RecommendationSnapshotStore(RecipeFeatureStore featureStore,
+                                       InteractionMatrix interactionMatrix,
+                                       @Value("${recommendation.model-dir:recommendation-model}") String modelDir) {
+        this.featureStore = featureStore;
+        this.interactionMatrix = interactionMatrix;
+        this.snapshotPath = Path.of(modelDir).resolve(SNAPSHOT_FILE);
+    }
+
+    /**
+     * Restores the feature store and interaction matrix from the snapshot on disk,
+     * then catches both up with changes made since the snapshot was written.
+     *
+     * @return true if a snapshot was restored, false if the stores must be rebuilt from the database
+     */
+    public synchronized boolean restore() {
+        if (!Files.exists(snapshotPath)) {
+            return false;
+        }
+
+        long highWaterMark;
+        try {
+            highWaterMark = read(snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to restore recommendation snapshot: " + e.getMessage());
+            return false;
+        }
+
+        LocalDateTime since = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(highWaterMark).minus(CATCH_UP_MARGIN), ZoneId.systemDefault());
+        featureStore.catchUp(since);
+        interactionMatrix.catchUp(since);
+        return true;
+    }
+
+    /**
+     * Writes a snapshot in the background, used right after the stores were rebuilt at startup.
+     */
+    @Async
+    public void writeInBackground() {
+        writeSnapshot();
+    }
+
+    /**
+     * Writes a snapshot of the current state.
+     * Runs hourly so a restarted instance has little to catch up on.
+     */
+    @Scheduled(cron = "0 15 * * * *")
+    public synchronized void writeSnapshot() {
+        try {
+            write(snapshotPath);
+        } catch (IOException e) {
+            System.err.println("Failed to write recommendation snapshot: " + e.getMessage());
+        }
+    }
+
+    private void write(Path path) throws IOException {
+        // Taken before reading any state: every later change is re-read on restore
+        long highWaterMark = System.currentTimeMillis();
+
+        List<RecipeFeatures> recipes = new ArrayList<>(featureStore.all());
+        // Exported after the features, so every code they use is in the dictionaries
+        List<String> categories = featureStore.categoryValues();
+        List<String> cuisines = featureStore.cuisineValues();
+        List<String> difficulties = featureStore.difficultyValues();
+        Cells cells = exportCells();
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(highWaterMark);
+            out.writeInt(RecipeFeatures.INGREDIENT_WORDS);
+
+            writeStrings(out, categories);
+            writeStrings(out, cuisines);
+            writeStrings(out, difficulties);
+
+            out.writeInt(recipes.size());
+            for (RecipeFeatures recipe : recipes) {
+                out.writeLong(recipe.getRecipeId());
+            }
+            for (RecipeFeatures recipe : recipes) {
+                out.writeInt(recipe.getCategoryCode());
+            }
+            for (RecipeFeatures recipe : recipes) {
+                out.writeInt(recipe.getCuisineCode());
+            }
+            for (RecipeFeatures recipe : recipes) {
+                out.writeInt(recipe.getDifficultyCode());
+            }
+            for (RecipeFeatures recipe : recipes) {
+                out.writeInt(recipe.getPrepTime());
+            }
+            for (RecipeFeatures recipe : recipes) {
+                for (long word : recipe.getIngredientBits()) {
+                    out.writeLong(word);
+                }
+            }
+            for (RecipeFeatures recipe : recipes) {
+                out.write(recipe.getSeasonalScores());
+            }
+
+            out.writeInt(cells.count);
+            for (int i = 0; i < cells.count; i++) {
+                out.writeLong(cells.userIds[i]);
+            }
+            for (int i = 0; i < cells.count; i++) {
+                out.writeLong(cells.recipeIds[i]);
+            }
+            for (int i = 0; i < cells.count; i++) {
+                out.writeFloat(cells.weights[i]);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot and loads it into the stores.
+     *
+     * @param path The snapshot file
+     * @return The high-water mark of the snapshot, in epoch milliseconds
+     * @throws IOException if the snapshot can't be read or has an unsupported format
+     */
+    private long read(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a recommendation snapshot: " + path);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported recommendation snapshot version " + version);
+        }
+        long highWaterMark = buffer.getLong();
+        int words = buffer.getInt();
+        if (words != RecipeFeatures.INGREDIENT_WORDS) {
+            throw new IOException("Snapshot was written for a different set of ingredient types");
+        }
+
+        List<String> categories = readStrings(buffer, path);
+        List<String> cuisines = readStrings(buffer, path);
+        List<String> difficulties = readStrings(buffer, path);
+
+        // Ids, four int columns, ingredient bitmap and monthly scores
+        int recipeCount = readCount(buffer, Long.BYTES + 4 * Integer.BYTES + words * Long.BYTES + MONTHS, path);
+        long[] recipeIds = readLongs(buffer, recipeCount);
+        int[] categoryCodes = readInts(buffer, recipeCount);
+        int[] cuisineCodes = readInts(buffer, recipeCount);
+        int[] difficultyCodes = readInts(buffer, recipeCount);
+        int[] prepTimes = readInts(buffer, recipeCount);
+        long[] ingredientBits = readLongs(buffer, recipeCount * words);
+        byte[] seasonalScores = new byte[recipeCount * MONTHS];
+        buffer.get(seasonalScores);
+
+        Collection<RecipeFeatures> recipes = new ArrayList<>(recipeCount);
+        for (int i = 0; i < recipeCount; i++) {
+            recipes.add(new RecipeFeatures(
+                    recipeIds[i],
+                    Arrays.copyOfRange(ingredientBits, i * words, (i + 1) * words),
+                    categoryCodes[i],
+                    cuisineCodes[i],
+                    difficultyCodes[i],
+                    prepTimes[i],
+                    Arrays.copyOfRange(seasonalScores, i * MONTHS, (i + 1) * MONTHS)));
+        }
+
+        int cellCount = readCount(buffer, 2 * Long.BYTES + Float.BYTES, path);
+        long[] cellUserIds = readLongs(buffer, cellCount);
+        long[] cellRecipeIds = readLongs(buffer, cellCount);
+        float[] cellWeights = readFloats(buffer, cellCount);
+
+        featureStore.restore(categories, cuisines, difficulties, recipes);
+        interactionMatrix.load(cellUserIds, cellRecipeIds, cellWeights);
+        return highWaterMark;
+    }
+
+    /**
+     * Copies every cell of the interaction matrix into flat arrays.
+     */
+    private Cells exportCells() {
+        Cells cells = new Cells();
+        int users = interactionMatrix.userCount();
+        for (int user = 0; user < users; user++) {
+            long userId = interactionMatrix.userId(user);
+            interactionMatrix.forEachInteraction(user, (recipeId, weight) -> cells.add(userId, recipeId, weight));
+        }
+        return cells;
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            if (value == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer, Path path) throws IOException {
+        int count = readCount(buffer, Integer.BYTES, path);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            if (length < 0) {
+                values.add(null);
+                continue;
+            }
+            if (length > buffer.remaining()) {
+                throw new IOException("Corrupt recommendation snapshot, invalid string length " + length + ": " + path);
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            values.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    /**
+     * Reads an entry count and checks that the remaining snapshot can hold that many entries,
+     * so a corrupt count fails the read instead of allocating a huge array.
+     *
+     * @param bytesPerEntry The minimum number of bytes each entry takes up in the snapshot
+     */
+    private static int readCount(ByteBuffer buffer, int bytesPerEntry, Path path) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / bytesPerEntry) {
+            throw new IOException("Corrupt recommendation snapshot, invalid count " + count + ": " + path);
+        }
+        return count;
+    }
+
+    private static long[] readLongs(ByteBuffer buffer, int count) {
+        long[] values = new long[count];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + count * Long.BYTES);
+        return values;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static float[] readFloats(ByteBuffer buffer, int count) {
+        float[] values = new float[count];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + count * Float.BYTES);
+        return values;
+    }
+
+    /**
+     * Growable (user, recipe, weight) cell arrays.
+     */
+    private static final class Cells {
+        long[] userIds = new long[1024];
+        long[] recipeIds = new long[1024];
+        float[] weights = new float[1024];
+        int count;
+
+        void add(long userId, long recipeId, float weight) {
+            if (count == weights.length) {
+                userIds = Arrays.copyOf(userIds, count * 2);
+                recipeIds = Arrays.copyOf(recipeIds, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+            }
+            userIds[count] = userId;
+            recipeIds[count] = recipeId;
+            weights[count] = weight;
+            count++;
+        }
+    }
+}
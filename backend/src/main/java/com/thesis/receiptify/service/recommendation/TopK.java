@@ -0,0 +1,141 @@
+package com.thesis.receiptify.service.recommendation;
+
+/**
+ * Bounded top-K selection over (id, score) pairs.
+ * Keeps the best K pairs seen so far in a fixed-size min-heap whose root is the worst kept
+ * pair, so selecting K out of N candidates costs O(N log K) time and O(K) memory instead of
+ * sorting all N. Ties are broken in favour of the lower id. Not thread-safe.
+ */
+public final class TopK {
+    private final long[] ids;
+    private final double[] scores;
+    private int size;
+    private boolean sorted;
+
+    /**
+     * @param k The maximum number of pairs to keep; values below 0 are treated as 0
+     */
+    public TopK(int k) {
+        int capacity = Math.max(0, k);
+        this.ids = new long[capacity];
+        this.scores = new double[capacity];
+    }
+
+    /**
+     * Selects the best K entries of a score map.
+     *
+     * @param k The maximum number of entries to select
+     * @param scores The scores to select from
+     * @return The selected entries, best first
+     */
+    public static TopK of(int k, LongDoubleMap scores) {
+        // Never allocate more slots than there are candidates
+        TopK topK = new TopK(Math.min(k, scores.size()));
+        scores.forEach(topK::offer);
+        return topK.sort();
+    }
+
+    /**
+     * Offers a pair; it is kept if it is among the best K pairs offered so far.
+     *
+     * @param id The id
+     * @param score The score
+     */
+    public void offer(long id, double score) {
+        if (sorted) {
+            throw new IllegalStateException("Top-K selection is already sorted");
+        }
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && worse(ids[0], scores[0], id, score)) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Sorts the kept pairs best first. No more pairs can be offered afterwards.
+     *
+     * @return This selection
+     */
+    public TopK sort() {
+        if (!sorted) {
+            // Heap sort: moving the worst pair to the end of the shrinking heap orders the array best first
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            sorted = true;
+        }
+        return this;
+    }
+
+    /**
+     * @return The number of kept pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The rank, 0 being the best, after {@link #sort()}
+     * @return The id at that rank
+     */
+    public long id(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @param index The rank, 0 being the best, after {@link #sort()}
+     * @return The score at that rank
+     */
+    public double score(int index) {
+        return scores[index];
+    }
+
+    private static boolean worse(long id1, double score1, long id2, double score2) {
+        return score1 < score2 || (score1 == score2 && id1 > id2);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(ids[index], scores[index], ids[parent], scores[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int heapSize) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < heapSize && worse(ids[right], scores[right], ids[left], scores[left])) {
+                worst = right;
+            }
+            if (!worse(ids[worst], scores[worst], ids[index], scores[index])) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
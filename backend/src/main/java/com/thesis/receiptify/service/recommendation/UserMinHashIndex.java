@@ -0,0 +1,221 @@
+package com.thesis.receiptify.service.recommendation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locality-sensitive hashing index over the interacted-recipe sets of users, used next to the
+ * {@link UserNeighbourStore} to find similar users the store misses because they only meet
+ * through very popular recipes.
+ * Each user gets a MinHash signature of {@code bands * rowsPerBand} values; users whose
+ * signatures agree on every row of at least one band share a bucket. The probability that
+ * two users share a bucket rises steeply with the Jaccard similarity of their sets, so the
+ * bucket mates of a user are a small candidate set that contains their most similar users
+ * with high probability.
+ *
+ * More bands (or fewer rows per band) raise recall at the cost of larger candidate sets;
+ * the number of candidates verified per lookup is capped separately, and a cap of 0 turns
+ * the lookup off. Users are identified by their {@link InteractionMatrix} ordinal, and the
+ * index is maintained by the matrix.
+ */
+@Component
+public class UserMinHashIndex {
+    static final int DEFAULT_BANDS = 32;
+    static final int DEFAULT_ROWS_PER_BAND = 2;
+    static final int DEFAULT_MAX_CANDIDATES = 500;
+
+    private final int bands;
+    private final int rowsPerBand;
+    private final int maxCandidates;
+    private final long[] seeds;
+
+    private final Map<Integer, int[]> signatures = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Integer>> buckets = new ConcurrentHashMap<>();
+
+    public UserMinHashIndex(@Value("${recommendation.lsh.bands:" + DEFAULT_BANDS + "}") int bands,
+                            @Value("${recommendation.lsh.rows-per-band:" + DEFAULT_ROWS_PER_BAND + "}") int rowsPerBand,
+                            @Value("${recommendation.lsh.max-candidates:" + DEFAULT_MAX_CANDIDATES + "}")
+                            int maxCandidates) {
+        if (bands < 1 || rowsPerBand < 1) {
+            throw new IllegalArgumentException("LSH bands and rows per band must be positive");
+        }
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+        this.maxCandidates = maxCandidates;
+
+        // Fixed seeds keep signatures stable across restarts
+        Random random = new Random(42);
+        this.seeds = new long[bands * rowsPerBand];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Rebuilds the signatures and buckets of all users of a matrix.
+     *
+     * @param matrix The interaction matrix to index
+     */
+    synchronized void rebuild(InteractionMatrix matrix) {
+        signatures.clear();
+        buckets.clear();
+
+        int users = matrix.userCount();
+        for (int user = 0; user < users; user++) {
+            int[] signature = emptySignature();
+            matrix.forEachInteraction(user, (recipeId, weight) -> include(signature, recipeId));
+            if (signature[0] != Integer.MAX_VALUE) {
+                signatures.put(user, signature);
+                updateBuckets(user, signature, true);
+            }
+        }
+    }
+
+    /**
+     * Adds a recipe to the set of a user. MinHash signatures update incrementally on insertion,
+     * so only the bands whose rows changed move to a new bucket.
+     *
+     * @param user The ordinal of the user
+     * @param recipeId The ID of the recipe the user interacted with
+     */
+    synchronized void add(int user, long recipeId) {
+        int[] previous = signatures.get(user);
+        int[] signature = previous != null ? previous.clone() : emptySignature();
+        include(signature, recipeId);
+        if (previous != null && Arrays.equals(previous, signature)) {
+            return;
+        }
+
+        if (previous != null) {
+            updateBuckets(user, previous, false);
+        }
+        signatures.put(user, signature);
+        updateBuckets(user, signature, true);
+    }
+
+    /**
+     * Recomputes the signature of a user from their current row, after recipes were removed from it.
+     * MinHash minima can't be undone, so a removal costs a pass over the user's set.
+     *
+     * @param user The ordinal of the user
+     * @param matrix The interaction matrix holding the user's current row
+     */
+    synchronized void reindex(int user, InteractionMatrix matrix) {
+        remove(user);
+
+        int[] signature = emptySignature();
+        matrix.forEachInteraction(user, (recipeId, weight) -> include(signature, recipeId));
+        if (signature[0] != Integer.MAX_VALUE) {
+            signatures.put(user, signature);
+            updateBuckets(user, signature, true);
+        }
+    }
+
+    /**
+     * Removes a user from the index.
+     *
+     * @param user The ordinal of the user
+     */
+    synchronized void remove(int user) {
+        int[] previous = signatures.remove(user);
+        if (previous != null) {
+            updateBuckets(user, previous, false);
+        }
+    }
+
+    /**
+     * Finds the users sharing at least one bucket with a user.
+     * Users colliding in more bands are likely more similar and are kept first when
+     * there are more candidates than the configured maximum.
+     *
+     * @param user The ordinal of the user
+     * @return The ordinals of the candidate neighbours, excluding the user
+     */
+    public int[] findCandidates(int user) {
+        int[] signature = signatures.get(user);
+        if (signature == null || maxCandidates <= 0) {
+            return new int[0];
+        }
+
+        LongDoubleMap collisions = new LongDoubleMap();
+        for (int band = 0; band < bands; band++) {
+            Set<Integer> bucket = buckets.get(bucketKey(signature, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (Integer other : bucket) {
+                if (other != user) {
+                    collisions.add(other, 1.0);
+                }
+            }
+        }
+
+        TopK best = TopK.of(maxCandidates, collisions);
+        int[] candidates = new int[best.size()];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = (int) best.id(i);
+        }
+        return candidates;
+    }
+
+    private int[] emptySignature() {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        return signature;
+    }
+
+    private void include(int[] signature, long recipeId) {
+        for (int i = 0; i < seeds.length; i++) {
+            // Keep the upper half of the mix and clear the sign bit so MAX_VALUE stays "empty"
+            int hash = (int) (mix(recipeId ^ seeds[i]) >>> 33);
+            if (hash < signature[i]) {
+                signature[i] = hash;
+            }
+        }
+    }
+
+    private void updateBuckets(int user, int[] signature, boolean add) {
+        for (int band = 0; band < bands; band++) {
+            long key = bucketKey(signature, band);
+            if (add) {
+                buckets.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(user);
+            } else {
+                Set<Integer> bucket = buckets.get(key);
+                if (bucket != null) {
+                    bucket.remove(user);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(key, bucket);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Hashes the rows of one band, together with the band number so equal rows in
+     * different bands land in different buckets.
+     */
+    private long bucketKey(int[] signature, int band) {
+        long key = band;
+        int from = band * rowsPerBand;
+        for (int row = from; row < from + rowsPerBand; row++) {
+            key = mix(key * 31 + signature[row]);
+        }
+        return key;
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
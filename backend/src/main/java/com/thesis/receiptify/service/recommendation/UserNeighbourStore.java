@@ -0,0 +1,385 @@
+package com.thesis.receiptify.service.recommendation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incrementally maintained approximate nearest neighbours of every user by Jaccard similarity of
+ * their interacted-recipe sets. For every pair of users sharing a recipe the store keeps the size of
+ * their intersection; the union follows from the two set sizes. When a user interacts with a new
+ * recipe only the pairs with the other users of that recipe change, so reading a user's neighbours
+ * costs constant time.
+ *
+ * Two bounds make the neighbours approximate:
+ * <ul>
+ *   <li>To bound the cost of a write, only the first {@link #MAX_POSTING_USERS} users of a recipe,
+ *   in the order they reached it, are paired through it. Later users still count the recipe in their
+ *   set size but share it with nobody, so a pair misses every recipe that either user reached after
+ *   it already had that many paired users. Two users meeting only through such popular recipes are
+ *   not paired at all; {@link UserMinHashIndex} covers them.</li>
+ *   <li>To bound memory, a user's pairs are pruned to the {@link #PRUNED_PAIRS} most similar ones
+ *   once they exceed {@link #MAX_PAIRS_PER_USER}, never below {@link #KEPT_NEIGHBOURS}. A pruned
+ *   pair is dropped on both sides and counts again from zero if the users meet on a later recipe.</li>
+ * </ul>
+ * All other intersections are exact, and pairs whose count drops to zero are removed.
+ *
+ * Each user keeps a short list of best neighbours that is rescored with current set sizes on read.
+ * Users and their sets are identified by {@link InteractionMatrix} ordinals; the store is
+ * maintained by the matrix.
+ */
+@Component
+public class UserNeighbourStore {
+    // Neighbours kept per user; more than are read, so growing sets rarely push a better user out
+    private static final int KEPT_NEIGHBOURS = 30;
+
+    // Users of a recipe paired through it; bounds a write to this many intersection updates
+    static final int MAX_POSTING_USERS = 500;
+
+    // Pairs a user may hold before being pruned, and how many of the most similar survive pruning
+    static final int MAX_PAIRS_PER_USER = 2000;
+    static final int PRUNED_PAIRS = Math.max(KEPT_NEIGHBOURS, MAX_PAIRS_PER_USER / 2);
+
+    // Guarded by this
+    private final Map<Long, IntList> usersByRecipe = new HashMap<>();
+    private final Map<Integer, LongDoubleMap> intersections = new HashMap<>();
+
+    private final Map<Integer, Integer> setSizes = new ConcurrentHashMap<>();
+    private final Map<Integer, Neighbours> neighbours = new ConcurrentHashMap<>();
+
+    /**
+     * Rebuilds the store from all users of a matrix.
+     *
+     * @param matrix The interaction matrix
+     */
+    synchronized void rebuild(InteractionMatrix matrix) {
+        usersByRecipe.clear();
+        intersections.clear();
+        setSizes.clear();
+        neighbours.clear();
+
+        int users = matrix.userCount();
+        for (int user = 0; user < users; user++) {
+            int ordinal = user;
+            int[] size = new int[1];
+            matrix.forEachInteraction(user, (recipeId, weight) -> {
+                IntList posting = usersByRecipe.computeIfAbsent(recipeId, id -> new IntList());
+                if (posting.size < MAX_POSTING_USERS) {
+                    posting.add(ordinal);
+                }
+                size[0]++;
+            });
+            if (size[0] > 0) {
+                setSizes.put(user, size[0]);
+            }
+        }
+
+        for (IntList posting : usersByRecipe.values()) {
+            for (int i = 0; i < posting.size; i++) {
+                LongDoubleMap counts = intersectionsOf(posting.values[i]);
+                for (int j = 0; j < posting.size; j++) {
+                    if (i != j) {
+                        counts.add(posting.values[j], 1.0);
+                    }
+                }
+            }
+        }
+
+        for (int user : setSizes.keySet()) {
+            LongDoubleMap counts = intersections.get(user);
+            if (counts != null && counts.size() > MAX_PAIRS_PER_USER) {
+                prunePairs(user);
+            }
+        }
+        for (int user : setSizes.keySet()) {
+            recomputeNeighbours(user);
+        }
+    }
+
+    /**
+     * Adds a new recipe to the set of a user, updating the intersections with every other user
+     * of that recipe. If the recipe already has {@link #MAX_POSTING_USERS} paired users, only the
+     * user's set size changes.
+     *
+     * @param user The ordinal of the user
+     * @param recipeId The ID of the recipe, which must not already be in the user's set
+     */
+    synchronized void add(int user, long recipeId) {
+        IntList posting = usersByRecipe.computeIfAbsent(recipeId, id -> new IntList());
+        setSizes.merge(user, 1, Integer::sum);
+        if (posting.size >= MAX_POSTING_USERS) {
+            // The set grew, which lowers the user's similarity to everyone
+            recomputeNeighbours(user);
+            return;
+        }
+
+        LongDoubleMap counts = intersectionsOf(user);
+        for (int i = 0; i < posting.size; i++) {
+            int other = posting.values[i];
+            counts.add(other, 1.0);
+            LongDoubleMap otherCounts = intersectionsOf(other);
+            otherCounts.add(user, 1.0);
+
+            // The other user's own set is unchanged, so only this pair moves in their list
+            offerNeighbour(other, user, (int) otherCounts.get(user, 0.0));
+            if (otherCounts.size() > MAX_PAIRS_PER_USER) {
+                prunePairs(other);
+            }
+        }
+        posting.add(user);
+        if (counts.size() > MAX_PAIRS_PER_USER) {
+            prunePairs(user);
+        }
+
+        // This user's set grew, which changes their similarity to everyone
+        recomputeNeighbours(user);
+    }
+
+    /**
+     * Removes a recipe from the set of a user, updating the intersections with every other user
+     * of that recipe and their neighbour lists.
+     *
+     * @param user The ordinal of the user
+     * @param recipeId The ID of the recipe, which must be in the user's set
+     */
+    synchronized void remove(int user, long recipeId) {
+        // A user past the recipe's paired users only counted it in their set size
+        IntList posting = usersByRecipe.get(recipeId);
+        boolean paired = posting != null && posting.remove(user);
+        if (paired && posting.size == 0) {
+            usersByRecipe.remove(recipeId);
+        }
+
+        if (setSizes.merge(user, -1, Integer::sum) <= 0) {
+            setSizes.remove(user);
+        }
+
+        for (int i = 0; paired && i < posting.size; i++) {
+            int other = posting.values[i];
+            decrement(user, other);
+            decrement(other, user);
+
+            // The pair's intersection shrank, which can drop this user from the other's list
+            recomputeNeighbours(other);
+        }
+
+        if (setSizes.containsKey(user)) {
+            recomputeNeighbours(user);
+        } else {
+            intersections.remove(user);
+            neighbours.remove(user);
+        }
+    }
+
+    /**
+     * Finds the users most similar to a user.
+     *
+     * @param user The ordinal of the user
+     * @param k The maximum number of neighbours to return
+     * @return The ordinals of the most similar users with their Jaccard similarity, best first
+     */
+    public TopK findNeighbours(int user, int k) {
+        TopK best = new TopK(k);
+        Neighbours current = neighbours.get(user);
+        if (current != null) {
+            int size = setSizes.getOrDefault(user, 0);
+            for (int i = 0; i < current.users.length; i++) {
+                if (current.intersections[i] > 0) {
+                    best.offer(current.users[i], jaccard(current.intersections[i], size, current.users[i]));
+                }
+            }
+        }
+        return best.sort();
+    }
+
+    /**
+     * Rebuilds a user's neighbour list from all users they share a recipe with.
+     */
+    private void recomputeNeighbours(int user) {
+        LongDoubleMap counts = intersections.get(user);
+        if (counts == null || counts.isEmpty()) {
+            neighbours.remove(user);
+            return;
+        }
+
+        int size = setSizes.getOrDefault(user, 0);
+        TopK best = new TopK(KEPT_NEIGHBOURS);
+        counts.forEach((other, intersection) -> best.offer(other, jaccard((int) intersection, size, (int) other)));
+        best.sort();
+
+        int[] users = new int[best.size()];
+        int[] userIntersections = new int[best.size()];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = (int) best.id(i);
+            userIntersections[i] = (int) counts.get(users[i], 0.0);
+        }
+        neighbours.put(user, new Neighbours(users, userIntersections));
+    }
+
+    /**
+     * Inserts or updates one neighbour in a user's list, dropping the weakest entry when the list is full.
+     */
+    private void offerNeighbour(int user, int neighbour, int intersection) {
+        Neighbours current = neighbours.getOrDefault(user, Neighbours.EMPTY);
+        int size = setSizes.getOrDefault(user, 0);
+
+        int position = -1;
+        for (int i = 0; i < current.users.length; i++) {
+            if (current.users[i] == neighbour) {
+                position = i;
+                break;
+            }
+        }
+
+        int[] users;
+        int[] userIntersections;
+        if (position >= 0) {
+            users = current.users;
+            userIntersections = current.intersections.clone();
+            userIntersections[position] = intersection;
+        } else if (current.users.length < KEPT_NEIGHBOURS) {
+            users = Arrays.copyOf(current.users, current.users.length + 1);
+            userIntersections = Arrays.copyOf(current.intersections, current.intersections.length + 1);
+            users[users.length - 1] = neighbour;
+            userIntersections[users.length - 1] = intersection;
+        } else {
+            int weakest = 0;
+            double weakestScore = Double.MAX_VALUE;
+            for (int i = 0; i < current.users.length; i++) {
+                double score = jaccard(current.intersections[i], size, current.users[i]);
+                if (score < weakestScore) {
+                    weakest = i;
+                    weakestScore = score;
+                }
+            }
+            if (jaccard(intersection, size, neighbour) <= weakestScore) {
+                return;
+            }
+            users = current.users.clone();
+            userIntersections = current.intersections.clone();
+            users[weakest] = neighbour;
+            userIntersections[weakest] = intersection;
+        }
+
+        neighbours.put(user, new Neighbours(users, userIntersections));
+    }
+
+    /**
+     * Decrements the intersection of a user with another one, removing the pair once it reaches zero.
+     * A pair that was pruned has nothing to decrement.
+     */
+    private void decrement(int user, int other) {
+        LongDoubleMap counts = intersections.get(user);
+        if (counts == null || !counts.containsKey(other)) {
+            return;
+        }
+        double intersection = counts.get(other, 0.0) - 1.0;
+        if (intersection > 0) {
+            counts.put(other, intersection);
+        } else {
+            counts.remove(other);
+            if (counts.isEmpty()) {
+                intersections.remove(user);
+            }
+        }
+    }
+
+    /**
+     * Keeps only the {@link #PRUNED_PAIRS} most similar pairs of a user, dropping the others on both sides.
+     */
+    private void prunePairs(int user) {
+        LongDoubleMap counts = intersections.get(user);
+        int size = setSizes.getOrDefault(user, 0);
+        TopK kept = new TopK(PRUNED_PAIRS);
+        counts.forEach((other, intersection) -> kept.offer(other, jaccard((int) intersection, size, (int) other)));
+
+        LongHashSet keptUsers = new LongHashSet();
+        for (int i = 0; i < kept.size(); i++) {
+            keptUsers.add(kept.id(i));
+        }
+
+        LongDoubleMap prunedCounts = new LongDoubleMap(kept.size());
+        counts.forEach((other, intersection) -> {
+            if (keptUsers.contains(other)) {
+                prunedCounts.put(other, intersection);
+                return;
+            }
+            LongDoubleMap otherCounts = intersections.get((int) other);
+            if (otherCounts != null) {
+                otherCounts.remove(user);
+                if (otherCounts.isEmpty()) {
+                    intersections.remove((int) other);
+                }
+            }
+            if (listsNeighbour((int) other, user)) {
+                recomputeNeighbours((int) other);
+            }
+        });
+        intersections.put(user, prunedCounts);
+        recomputeNeighbours(user);
+    }
+
+    private boolean listsNeighbour(int user, int neighbour) {
+        Neighbours current = neighbours.get(user);
+        if (current != null) {
+            for (int listed : current.users) {
+                if (listed == neighbour) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private double jaccard(int intersection, int size, int other) {
+        int union = size + setSizes.getOrDefault(other, 0) - intersection;
+        return union > 0 ? (double) intersection / union : 0.0;
+    }
+
+    private LongDoubleMap intersectionsOf(int user) {
+        return intersections.computeIfAbsent(user, u -> new LongDoubleMap());
+    }
+
+    /**
+     * Immutable neighbour list of one user, replaced as a whole on every change.
+     */
+    private static final class Neighbours {
+        static final Neighbours EMPTY = new Neighbours(new int[0], new int[0]);
+
+        final int[] users;
+        final int[] intersections;
+
+        Neighbours(int[] users, int[] intersections) {
+            this.users = users;
+            this.intersections = intersections;
+        }
+    }
+
+    /**
+     * Growable list of user ordinals.
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        boolean remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.thesis.receiptify.service.recommendation;
+
+import lombok.Getter;
+
+/**
+ * A user's recommendation preferences translated into the codes and bitmaps of the
+ * recipe feature store, so they can be matched against {@link RecipeFeatures} directly.
+ */
+@Getter
+public final class UserPreferenceVector {
+    private final int[] categoryCodes;
+    private final int[] cuisineCodes;
+    private final long[] favoriteBits;
+    private final long[] dislikedBits;
+    private final int difficultyCode;
+    private final int maxPrepTime;
+    private final boolean preferSeasonal;
+
+    public UserPreferenceVector(int[] categoryCodes, int[] cuisineCodes, long[] favoriteBits, long[] dislikedBits,
+                                int difficultyCode, int maxPrepTime, boolean preferSeasonal) {
+        this.categoryCodes = categoryCodes;
+        this.cuisineCodes = cuisineCodes;
+        this.favoriteBits = favoriteBits;
+        this.dislikedBits = dislikedBits;
+        this.difficultyCode = difficultyCode;
+        this.maxPrepTime = maxPrepTime;
+        this.preferSeasonal = preferSeasonal;
+    }
+
+    /**
+     * @param categoryCode An interned category code
+     * @return true if the category is one of the user's preferred categories
+     */
+    public boolean prefersCategory(int categoryCode) {
+        return contains(categoryCodes, categoryCode);
+    }
+
+    /**
+     * @param cuisineCode An interned cuisine code
+     * @return true if the cuisine is one of the user's preferred cuisines
+     */
+    public boolean prefersCuisine(int cuisineCode) {
+        return contains(cuisineCodes, cuisineCode);
+    }
+
+    private static boolean contains(int[] codes, int code) {
+        if (code == RecipeFeatures.NO_CODE) {
+            return false;
+        }
+        for (int candidate : codes) {
+            if (candidate == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,134 @@
+package com.thesis.receiptify.repository;
+
+import com.thesis.receiptify.model.Ingredient;
+import com.thesis.receiptify.model.Profile;
+import com.thesis.receiptify.model.Recipe;
+import com.thesis.receiptify.model.RecipeStep;
+import com.thesis.receiptify.model.enums.IngredientType;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that recipe pages load with all associations needed for mapping in a constant number of queries.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class RecipeRepositoryQueryCountTest {
+    private static final int RECIPES = 30;
+
+    // ID page, count, and one query per entity graph
+    private static final long PAGE_QUERIES = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    private Statistics statistics;
+    private Profile author;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        author = entityManager.persist(Profile.builder()
+                .username("author")
+                .email("author@example.com")
+                .build());
+
+        for (int i = 0; i < RECIPES; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle("Recipe " + i);
+            recipe.setDescription(i % 2 == 0 ? "Tomato soup" : "Apple pie");
+            recipe.setUser(author);
+            recipe.setDietaryTags(Set.of("vegetarian", "quick"));
+            recipe.setFeatured(i % 3 == 0);
+            recipe.setFeaturedAt(LocalDateTime.now().minusHours(i));
+            recipe.addIngredient(Ingredient.builder().type(IngredientType.TOMATOES).name("Tomato").build());
+            recipe.addIngredient(Ingredient.builder().type(IngredientType.ONIONS).name("Onion").build());
+            recipe.addIngredient(Ingredient.builder().type(IngredientType.GARLIC).name("Garlic").build());
+            recipe.addStep(RecipeStep.builder().stepNumber(2).instruction("Simmer").build());
+            recipe.addStep(RecipeStep.builder().stepNumber(1).instruction("Chop").build());
+            entityManager.persist(recipe);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void allRecipesPageLoadsInConstantQueries() {
+        assertPageQueries(pageable -> recipeRepository.findIdsByOrderByCreatedAtDesc(pageable));
+    }
+
+    @Test
+    void userRecipesPageLoadsInConstantQueries() {
+        assertPageQueries(pageable -> recipeRepository.findIdsByUserOrderByCreatedAtDesc(author, pageable));
+    }
+
+    @Test
+    void searchPageLoadsInConstantQueries() {
+        assertPageQueries(pageable -> recipeRepository.searchRecipeIds("soup", pageable));
+    }
+
+    @Test
+    void featuredPageLoadsInConstantQueries() {
+        assertPageQueries(pageable -> recipeRepository.findFeaturedIdsOrderByFeaturedAtDesc(pageable));
+    }
+
+    @Test
+    void pageKeepsTheOrderOfTheIdPage() {
+        Page<Long> ids = recipeRepository.findFeaturedIdsOrderByFeaturedAtDesc(PageRequest.of(0, 5));
+        Page<Recipe> recipes = recipeRepository.findAllWithDetails(ids);
+
+        assertThat(recipes.getContent()).extracting(Recipe::getId).containsExactlyElementsOf(ids.getContent());
+        assertThat(recipes.getTotalElements()).isEqualTo(ids.getTotalElements());
+        assertThat(recipes.getContent().get(0).getSteps()).extracting(RecipeStep::getStepNumber)
+                .containsExactly(1, 2);
+    }
+
+    /**
+     * Loads a small and a large first page through the ID query and checks that both take the same,
+     * constant number of statements, including touching every association the mappers read.
+     */
+    private void assertPageQueries(IdPageQuery idPageQuery) {
+        for (int size : List.of(2, 10)) {
+            entityManager.clear();
+            statistics.clear();
+
+            Page<Recipe> page = recipeRepository.findAllWithDetails(idPageQuery.find(PageRequest.of(0, size)));
+            for (Recipe recipe : page) {
+                assertThat(recipe.getUser().getUsername()).isEqualTo("author");
+                assertThat(recipe.getDietaryTags()).hasSize(2);
+                assertThat(recipe.getIngredients()).hasSize(3);
+                assertThat(recipe.getSteps()).hasSize(2);
+            }
+
+            assertThat(page.getContent()).hasSize(size);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(PAGE_QUERIES);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IdPageQuery {
+        Page<Long> find(Pageable pageable);
+    }
+}
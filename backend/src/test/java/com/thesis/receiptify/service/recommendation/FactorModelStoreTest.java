@@ -0,0 +1,123 @@
+package com.thesis.receiptify.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the binary factor model snapshot: a written model reads back unchanged, and a bad
+ * snapshot makes the store report that nothing was loaded instead of failing startup.
+ */
+class FactorModelStoreTest {
+    private static final String SNAPSHOT_FILE = "factor-model.bin";
+
+    @TempDir
+    Path modelDir;
+
+    @Test
+    void writtenModelReadsBackUnchanged() throws IOException {
+        FactorModel model = sampleModel();
+        Path path = modelDir.resolve(SNAPSHOT_FILE);
+        model.writeTo(path);
+
+        FactorModel read = FactorModel.readFrom(path);
+
+        assertThat(read.getFactors()).isEqualTo(model.getFactors());
+        assertThat(read.getTrainedAt()).isEqualTo(model.getTrainedAt());
+        assertThat(read.userCount()).isEqualTo(model.userCount());
+        assertThat(read.recipeCount()).isEqualTo(model.recipeCount());
+        for (int recipeRow = 0; recipeRow < model.recipeCount(); recipeRow++) {
+            assertThat(read.recipeId(recipeRow)).isEqualTo(model.recipeId(recipeRow));
+        }
+        for (long userId : new long[]{11, 12, 13}) {
+            int userRow = read.findUser(userId);
+            assertThat(userRow).isEqualTo(model.findUser(userId));
+            for (int recipeRow = 0; recipeRow < model.recipeCount(); recipeRow++) {
+                assertThat(read.score(userRow, recipeRow)).isEqualTo(model.score(userRow, recipeRow));
+            }
+        }
+    }
+
+    @Test
+    void storeLoadsWrittenSnapshot() throws IOException {
+        sampleModel().writeTo(modelDir.resolve(SNAPSHOT_FILE));
+        FactorModelStore store = new FactorModelStore(null, modelDir.toString());
+
+        assertThat(store.loadSnapshot()).isTrue();
+        assertThat(store.current().getTrainedAt()).isEqualTo(1_700_000_000_000L);
+    }
+
+    @Test
+    void missingSnapshotIsNotLoaded() {
+        FactorModelStore store = new FactorModelStore(null, modelDir.toString());
+
+        assertThat(store.loadSnapshot()).isFalse();
+        assertThat(store.current()).isNull();
+    }
+
+    @Test
+    void truncatedSnapshotFallsBack() throws IOException {
+        Path path = modelDir.resolve(SNAPSHOT_FILE);
+        sampleModel().writeTo(path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 10));
+
+        assertThatThrownBy(() -> FactorModel.readFrom(path)).isInstanceOf(IOException.class);
+        assertFallsBack();
+    }
+
+    @Test
+    void garbageSnapshotFallsBack() throws IOException {
+        Files.write(modelDir.resolve(SNAPSHOT_FILE), "not a factor model".getBytes());
+
+        assertFallsBack();
+    }
+
+    @Test
+    void corruptCountsFallBack() throws IOException {
+        Path path = modelDir.resolve(SNAPSHOT_FILE);
+        sampleModel().writeTo(path);
+        byte[] valid = Files.readAllBytes(path);
+
+        // Factor count, then user row count: magic, version, factors, trainedAt, users
+        for (int offset : new int[]{8, 20}) {
+            for (int count : new int[]{-1, Integer.MAX_VALUE}) {
+                byte[] bytes = valid.clone();
+                ByteBuffer.wrap(bytes).putInt(offset, count);
+                Files.write(path, bytes);
+
+                assertFallsBack();
+            }
+        }
+    }
+
+    private void assertFallsBack() {
+        FactorModelStore store = new FactorModelStore(null, modelDir.toString());
+
+        assertThat(store.loadSnapshot()).isFalse();
+        assertThat(store.current()).isNull();
+    }
+
+    private static FactorModel sampleModel() {
+        int factors = 3;
+        long[] userIds = {11, 12, 13};
+        long[] recipeIds = {101, 102, 103, 104};
+        float[] userFactors = new float[userIds.length * factors];
+        float[] recipeFactors = new float[recipeIds.length * factors];
+        for (int i = 0; i < userFactors.length; i++) {
+            userFactors[i] = i * 0.25f - 1;
+        }
+        for (int i = 0; i < recipeFactors.length; i++) {
+            recipeFactors[i] = 0.5f - i * 0.125f;
+        }
+        return new FactorModel(factors, 1_700_000_000_000L, userIds, userFactors, recipeIds, recipeFactors);
+    }
+}
@@ -0,0 +1,131 @@
+package com.thesis.receiptify.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the primitive long to double map, including growth and removal, against {@link HashMap}.
+ */
+class LongDoubleMapTest {
+
+    @Test
+    void putReplacesAndGetFallsBackToDefault() {
+        LongDoubleMap map = new LongDoubleMap();
+        map.put(1, 1.5);
+        map.put(1, 2.5);
+
+        assertThat(map.get(1, -1)).isEqualTo(2.5);
+        assertThat(map.get(2, -1)).isEqualTo(-1);
+        assertThat(map.containsKey(2)).isFalse();
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void addTreatsAbsentKeyAsZero() {
+        LongDoubleMap map = new LongDoubleMap();
+        map.add(7, 1.5);
+        map.add(7, 2.0);
+        map.add(8, -1.0);
+
+        assertThat(map.get(7, 0)).isEqualTo(3.5);
+        assertThat(map.get(8, 0)).isEqualTo(-1.0);
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    void putMaxKeepsLargerValue() {
+        LongDoubleMap map = new LongDoubleMap();
+        map.putMax(3, 0.4);
+        map.putMax(3, 0.2);
+        map.putMax(4, -0.5);
+
+        assertThat(map.get(3, 0)).isEqualTo(0.4);
+        map.putMax(3, 0.9);
+        assertThat(map.get(3, 0)).isEqualTo(0.9);
+        // An absent key takes the value even when it is negative
+        assertThat(map.get(4, 0)).isEqualTo(-0.5);
+    }
+
+    @Test
+    void keepsEntriesAcrossGrowth() {
+        LongDoubleMap map = new LongDoubleMap(1);
+        for (long key = 0; key < 10_000; key++) {
+            // Multiples of a power of two collide in the low bits without mixing
+            map.put(key << 20, key);
+        }
+
+        assertThat(map.size()).isEqualTo(10_000);
+        for (long key = 0; key < 10_000; key++) {
+            assertThat(map.get(key << 20, -1)).isEqualTo(key);
+        }
+        assertThat(map.containsKey(1)).isFalse();
+    }
+
+    @Test
+    void removeKeepsOtherKeysReachable() {
+        LongDoubleMap map = new LongDoubleMap();
+        map.put(1, 1);
+        map.put(2, 2);
+        map.remove(1);
+        map.remove(3);
+
+        assertThat(map.containsKey(1)).isFalse();
+        assertThat(map.get(2, -1)).isEqualTo(2);
+        assertThat(map.size()).isEqualTo(1);
+
+        map.remove(2);
+        assertThat(map.isEmpty()).isTrue();
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        LongDoubleMap map = new LongDoubleMap();
+        Map<Long, Double> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    map.put(key, i);
+                    expected.put(key, (double) i);
+                }
+                case 1 -> {
+                    map.add(key, 1);
+                    expected.merge(key, 1.0, Double::sum);
+                }
+                default -> {
+                    map.remove(key);
+                    expected.remove(key);
+                }
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 2_000; key++) {
+            assertThat(map.containsKey(key)).isEqualTo(expected.containsKey(key));
+            assertThat(map.get(key, Double.NaN)).isEqualTo(expected.getOrDefault(key, Double.NaN));
+        }
+        Map<Long, Double> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertThat(visited).isEqualTo(expected);
+    }
+
+    @Test
+    void maxValueAndScale() {
+        LongDoubleMap map = new LongDoubleMap();
+        assertThat(map.maxValue()).isEqualTo(0.0);
+
+        map.put(1, -2);
+        map.put(2, -1);
+        assertThat(map.maxValue()).isEqualTo(-1);
+
+        map.scale(-2);
+        assertThat(map.get(1, 0)).isEqualTo(4);
+        assertThat(map.maxValue()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,56 @@
+package com.thesis.receiptify.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the primitive long hash set.
+ */
+class LongHashSetTest {
+
+    @Test
+    void addIgnoresDuplicates() {
+        LongHashSet set = new LongHashSet();
+        assertThat(set.isEmpty()).isTrue();
+
+        set.add(5);
+        set.add(5);
+        set.add(-5);
+
+        assertThat(set.size()).isEqualTo(2);
+        assertThat(set.contains(5)).isTrue();
+        assertThat(set.contains(-5)).isTrue();
+        assertThat(set.contains(6)).isFalse();
+    }
+
+    @Test
+    void keepsValuesAcrossGrowth() {
+        List<Long> values = new ArrayList<>();
+        for (long value = 0; value < 5_000; value++) {
+            values.add(value * 64);
+        }
+        LongHashSet set = new LongHashSet(values.subList(0, 10));
+        for (long value : values) {
+            set.add(value);
+        }
+
+        assertThat(set.size()).isEqualTo(values.size());
+        for (long value : values) {
+            assertThat(set.contains(value)).isTrue();
+            assertThat(set.contains(value + 1)).isFalse();
+        }
+    }
+
+    @Test
+    void initialValuesAreContained() {
+        LongHashSet set = new LongHashSet(List.of(1L, 2L, 2L, Long.MAX_VALUE));
+
+        assertThat(set.size()).isEqualTo(3);
+        assertThat(set.contains(Long.MAX_VALUE)).isTrue();
+        assertThat(set.contains(0)).isFalse();
+    }
+}
@@ -0,0 +1,176 @@
+package com.thesis.receiptify.service.recommendation;
+
+import com.thesis.receiptify.model.enums.IngredientType;
+import com.thesis.receiptify.repository.IngredientRepository;
+import com.thesis.receiptify.repository.RecipeRepository;
+import com.thesis.receiptify.repository.UserInteractionRepository;
+import com.thesis.receiptify.service.SeasonalityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the binary recommendation snapshot: a written snapshot restores the feature store and
+ * interaction matrix unchanged, and a bad snapshot is reported as not restored, so startup falls
+ * back to rebuilding the stores from the database.
+ */
+class RecommendationSnapshotStoreTest {
+    private static final String SNAPSHOT_FILE = "recommendation-state.bin";
+    private static final List<Long> RECIPE_IDS = List.of(101L, 102L, 103L);
+    private static final List<Long> USER_IDS = List.of(11L, 12L);
+
+    @TempDir
+    Path modelDir;
+
+    private RecipeRepository recipeRepository;
+    private UserInteractionRepository interactionRepository;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository = mock(RecipeRepository.class);
+        interactionRepository = mock(UserInteractionRepository.class);
+        // Everything in the snapshot still exists, and nothing changed since it was written
+        when(recipeRepository.findAllIds()).thenReturn(RECIPE_IDS);
+        when(interactionRepository.findAllInteractingUserIds()).thenReturn(USER_IDS);
+        when(interactionRepository.findAllInteractedRecipeIds()).thenReturn(RECIPE_IDS);
+    }
+
+    @Test
+    void writtenSnapshotRestoresUnchanged() {
+        RecipeFeatureStore featureStore = newFeatureStore();
+        InteractionMatrix matrix = newMatrix();
+        fill(featureStore, matrix);
+        new RecommendationSnapshotStore(featureStore, matrix, modelDir.toString()).writeSnapshot();
+
+        RecipeFeatureStore restoredFeatures = newFeatureStore();
+        InteractionMatrix restoredMatrix = newMatrix();
+        assertThat(new RecommendationSnapshotStore(restoredFeatures, restoredMatrix, modelDir.toString()).restore())
+                .isTrue();
+
+        assertThat(restoredFeatures.categoryValues()).isEqualTo(featureStore.categoryValues());
+        assertThat(restoredFeatures.cuisineValues()).isEqualTo(featureStore.cuisineValues());
+        assertThat(restoredFeatures.difficultyValues()).isEqualTo(featureStore.difficultyValues());
+        assertThat(restoredFeatures.all()).hasSize(RECIPE_IDS.size());
+        for (Long recipeId : RECIPE_IDS) {
+            RecipeFeatures expected = featureStore.get(recipeId);
+            RecipeFeatures actual = restoredFeatures.get(recipeId);
+            assertThat(actual.getIngredientBits()).isEqualTo(expected.getIngredientBits());
+            assertThat(actual.getCategoryCode()).isEqualTo(expected.getCategoryCode());
+            assertThat(actual.getCuisineCode()).isEqualTo(expected.getCuisineCode());
+            assertThat(actual.getDifficultyCode()).isEqualTo(expected.getDifficultyCode());
+            assertThat(actual.getPrepTime()).isEqualTo(expected.getPrepTime());
+            assertThat(actual.getSeasonalScores()).isEqualTo(expected.getSeasonalScores());
+        }
+
+        for (Long userId : USER_IDS) {
+            assertThat(interactions(restoredMatrix, userId)).isEqualTo(interactions(matrix, userId));
+        }
+        assertThat(interactions(restoredMatrix, 11L)).containsOnlyKeys(101L, 102L);
+    }
+
+    @Test
+    void missingSnapshotIsNotRestored() {
+        assertThat(newSnapshotStore().restore()).isFalse();
+    }
+
+    @Test
+    void truncatedSnapshotFallsBack() throws IOException {
+        byte[] valid = writeSampleSnapshot();
+
+        for (int length : new int[]{valid.length - 1, valid.length / 2, 10}) {
+            Files.write(modelDir.resolve(SNAPSHOT_FILE), Arrays.copyOf(valid, length));
+
+            assertFallsBack();
+        }
+    }
+
+    @Test
+    void garbageSnapshotFallsBack() throws IOException {
+        byte[] garbage = new byte[4096];
+        new Random(5).nextBytes(garbage);
+        Files.write(modelDir.resolve(SNAPSHOT_FILE), garbage);
+
+        assertFallsBack();
+    }
+
+    @Test
+    void corruptCountFallsBack() throws IOException {
+        byte[] valid = writeSampleSnapshot();
+
+        // Category dictionary size: magic, version, high-water mark, ingredient words
+        for (int count : new int[]{-1, Integer.MAX_VALUE}) {
+            byte[] bytes = valid.clone();
+            ByteBuffer.wrap(bytes).putInt(20, count);
+            Files.write(modelDir.resolve(SNAPSHOT_FILE), bytes);
+
+            assertFallsBack();
+        }
+    }
+
+    private void assertFallsBack() {
+        RecipeFeatureStore featureStore = newFeatureStore();
+        InteractionMatrix matrix = newMatrix();
+
+        assertThat(new RecommendationSnapshotStore(featureStore, matrix, modelDir.toString()).restore()).isFalse();
+        assertThat(featureStore.all()).isEmpty();
+        assertThat(matrix.userCount()).isZero();
+    }
+
+    private byte[] writeSampleSnapshot() throws IOException {
+        RecipeFeatureStore featureStore = newFeatureStore();
+        InteractionMatrix matrix = newMatrix();
+        fill(featureStore, matrix);
+        new RecommendationSnapshotStore(featureStore, matrix, modelDir.toString()).writeSnapshot();
+        return Files.readAllBytes(modelDir.resolve(SNAPSHOT_FILE));
+    }
+
+    private RecommendationSnapshotStore newSnapshotStore() {
+        return new RecommendationSnapshotStore(newFeatureStore(), newMatrix(), modelDir.toString());
+    }
+
+    private RecipeFeatureStore newFeatureStore() {
+        return new RecipeFeatureStore(recipeRepository, mock(IngredientRepository.class),
+                mock(SeasonalityService.class), new IngredientCooccurrenceMatrix());
+    }
+
+    private InteractionMatrix newMatrix() {
+        return new InteractionMatrix(interactionRepository, new UserNeighbourStore(),
+                new UserMinHashIndex(UserMinHashIndex.DEFAULT_BANDS, UserMinHashIndex.DEFAULT_ROWS_PER_BAND,
+                        UserMinHashIndex.DEFAULT_MAX_CANDIDATES));
+    }
+
+    private static void fill(RecipeFeatureStore featureStore, InteractionMatrix matrix) {
+        byte[] seasonal = new byte[12];
+        for (int month = 0; month < seasonal.length; month++) {
+            seasonal[month] = (byte) (month * 8);
+        }
+        featureStore.restore(
+                Arrays.asList("Dinner", "Dessert"),
+                Arrays.asList("Italian", null),
+                List.of("Easy"),
+                List.of(
+                        new RecipeFeatures(101, RecipeFeatures.toBits(List.of(IngredientType.values()[0],
+                                IngredientType.values()[IngredientType.values().length - 1])), 0, 0, 0, 30, seasonal),
+                        new RecipeFeatures(102, RecipeFeatures.toBits(List.of(IngredientType.values()[1])),
+                                1, RecipeFeatures.NO_CODE, 0, RecipeFeatures.NO_CODE, seasonal.clone()),
+                        new RecipeFeatures(103, RecipeFeatures.toBits(List.of()), RecipeFeatures.NO_CODE,
+                                1, RecipeFeatures.NO_CODE, 5, new byte[12])));
+        matrix.load(new long[]{11, 11, 12}, new long[]{101, 102, 103}, new float[]{1.0f, 3.5f, 2.0f});
+    }
+
+    private static Map<Long, Float> interactions(InteractionMatrix matrix, long userId) {
+        Map<Long, Float> interactions = new HashMap<>();
+        matrix.forEachInteraction(matrix.findUser(userId), interactions::put);
+        return interactions;
+    }
+}
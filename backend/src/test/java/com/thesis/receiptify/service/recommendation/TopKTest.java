@@ -0,0 +1,120 @@
+package com.thesis.receiptify.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the bounded top-K selection against sorting all pairs.
+ */
+class TopKTest {
+
+    @Test
+    void keepsBestPairsBestFirst() {
+        TopK topK = new TopK(3);
+        topK.offer(1, 0.5);
+        topK.offer(2, 0.9);
+        topK.offer(3, 0.1);
+        topK.offer(4, 0.7);
+        topK.offer(5, 0.3);
+        topK.sort();
+
+        assertThat(ids(topK)).containsExactly(2L, 4L, 1L);
+        assertThat(topK.score(0)).isEqualTo(0.9);
+        assertThat(topK.score(2)).isEqualTo(0.5);
+    }
+
+    @Test
+    void breaksTiesInFavourOfLowerId() {
+        TopK topK = new TopK(2);
+        topK.offer(7, 1.0);
+        topK.offer(3, 1.0);
+        topK.offer(5, 1.0);
+        topK.offer(9, 1.0);
+        topK.sort();
+
+        assertThat(ids(topK)).containsExactly(3L, 5L);
+    }
+
+    @Test
+    void keepsNothingWhenKIsNotPositive() {
+        for (int k : new int[]{0, -1}) {
+            TopK topK = new TopK(k);
+            topK.offer(1, 1.0);
+            topK.offer(2, 2.0);
+            topK.sort();
+
+            assertThat(topK.size()).isZero();
+        }
+    }
+
+    @Test
+    void keepsAllPairsWhenKExceedsCandidates() {
+        TopK topK = new TopK(10);
+        topK.offer(1, 0.2);
+        topK.offer(2, 0.4);
+        topK.offer(3, 0.3);
+        topK.sort();
+
+        assertThat(topK.size()).isEqualTo(3);
+        assertThat(ids(topK)).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void ofSelectsFromScoreMap() {
+        LongDoubleMap scores = new LongDoubleMap();
+        scores.put(10, 0.1);
+        scores.put(20, 0.8);
+        scores.put(30, 0.8);
+        scores.put(40, 0.5);
+
+        assertThat(ids(TopK.of(3, scores))).containsExactly(20L, 30L, 40L);
+        assertThat(TopK.of(100, scores).size()).isEqualTo(4);
+        assertThat(TopK.of(0, scores).size()).isZero();
+        assertThat(TopK.of(5, new LongDoubleMap()).size()).isZero();
+    }
+
+    @Test
+    void matchesFullSort() {
+        Random random = new Random(42);
+        List<long[]> pairs = new ArrayList<>();
+        TopK topK = new TopK(50);
+        for (int i = 0; i < 5_000; i++) {
+            long id = random.nextInt(100_000);
+            // Few distinct scores, so many ties
+            double score = random.nextInt(200) / 10.0;
+            pairs.add(new long[]{id, Double.doubleToLongBits(score)});
+            topK.offer(id, score);
+        }
+        topK.sort();
+
+        pairs.sort(Comparator.<long[]>comparingDouble(pair -> -Double.longBitsToDouble(pair[1]))
+                .thenComparingLong(pair -> pair[0]));
+        for (int i = 0; i < topK.size(); i++) {
+            assertThat(topK.id(i)).isEqualTo(pairs.get(i)[0]);
+            assertThat(topK.score(i)).isEqualTo(Double.longBitsToDouble(pairs.get(i)[1]));
+        }
+        assertThat(topK.size()).isEqualTo(50);
+    }
+
+    @Test
+    void rejectsOffersAfterSort() {
+        TopK topK = new TopK(2).sort();
+
+        assertThatThrownBy(() -> topK.offer(1, 1.0)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static List<Long> ids(TopK topK) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < topK.size(); i++) {
+            ids.add(topK.id(i));
+        }
+        return ids;
+    }
+}